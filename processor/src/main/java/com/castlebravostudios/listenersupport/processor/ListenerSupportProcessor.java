@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor which generates a ListenerProxyFactory for every interface annotated with
+ * GenerateListenerSupport. The generated class forwards calls to the ListenerSupport invocation
+ * handlers without using java.lang.reflect.Proxy, and calls listeners through plain interface
+ * calls rather than reflection.
+ */
+@SupportedAnnotationTypes(ListenerSupportProcessor.ANNOTATION)
+public class ListenerSupportProcessor extends AbstractProcessor {
+  static final String ANNOTATION = "com.castlebravostudios.listenersupport.GenerateListenerSupport";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (isValidListener(element)) {
+          generate((TypeElement) element);
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean isValidListener(Element element) {
+    if (element.getKind() != ElementKind.INTERFACE) {
+      error(element, "@GenerateListenerSupport can only be applied to interfaces");
+      return false;
+    }
+    if (!((TypeElement) element).getTypeParameters().isEmpty()) {
+      error(element, "@GenerateListenerSupport can not be applied to generic interfaces");
+      return false;
+    }
+    for (Element e = element; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+      if (e.getModifiers().contains(Modifier.PRIVATE)) {
+        error(element, "@GenerateListenerSupport can not be applied to private interfaces");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void generate(TypeElement listener) {
+    ListenerSupportWriter writer = new ListenerSupportWriter(processingEnv, listener);
+    String source;
+    try {
+      source = writer.generateSource();
+    } catch (UnsupportedMethodException e) {
+      error(e.getMethod(), e.getMessage());
+      return;
+    }
+
+    try {
+      JavaFileObject file =
+          processingEnv.getFiler().createSourceFile(writer.getGeneratedClassName(), listener);
+      try (Writer out = file.openWriter()) {
+        out.write(source);
+      }
+    } catch (IOException e) {
+      error(listener, "Could not write " + writer.getGeneratedClassName() + ": " + e.getMessage());
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
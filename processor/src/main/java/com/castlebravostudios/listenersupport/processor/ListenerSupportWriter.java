@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Generates the source of the ListenerProxyFactory for a single listener interface. All names in
+ * the generated source are fully qualified, so no imports are needed.
+ */
+class ListenerSupportWriter {
+  private static final String LIBRARY_PACKAGE = "com.castlebravostudios.listenersupport";
+  private static final String GENERATED_SUFFIX = "ListenerSupport";
+
+  private final Elements elements;
+  private final Types types;
+  private final TypeElement listener;
+  private final DeclaredType listenerType;
+  private final String packageName;
+  private final String simpleName;
+
+  private final StringBuilder out = new StringBuilder();
+
+  ListenerSupportWriter(ProcessingEnvironment env, TypeElement listener) {
+    this.elements = env.getElementUtils();
+    this.types = env.getTypeUtils();
+    this.listener = listener;
+    this.listenerType = (DeclaredType) listener.asType();
+    this.packageName = elements.getPackageOf(listener).getQualifiedName().toString();
+
+    // Must match ProxyFactories.generatedClassName in the library.
+    String binaryName = elements.getBinaryName(listener).toString();
+    String nestedName = packageName.isEmpty()
+        ? binaryName : binaryName.substring(packageName.length() + 1);
+    this.simpleName = nestedName.replace('$', '_') + GENERATED_SUFFIX;
+  }
+
+  String getGeneratedClassName() {
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  String generateSource() {
+    List<ExecutableElement> methods = collectMethods();
+    String listenerName = render(types.erasure(listenerType));
+
+    if (!packageName.isEmpty()) {
+      line("package " + packageName + ";");
+      line("");
+    }
+    line("/** Generated by ListenerSupportProcessor for {@link " + listenerName + "}. */");
+    line("@java.lang.SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+    line("public final class " + simpleName
+        + " implements " + LIBRARY_PACKAGE + ".ListenerProxyFactory<" + listenerName + "> {");
+    for (int i = 0; i < methods.size(); i++) {
+      writeMethodConstant(i, methods.get(i));
+    }
+    line("  private static final java.util.Map<java.lang.reflect.Method, "
+        + LIBRARY_PACKAGE + ".MethodInvoker> INVOKERS = invokers();");
+    line("");
+    line("  private static java.lang.reflect.Method method(");
+    line("      java.lang.String name, java.lang.Class<?>... parameterTypes) {");
+    line("    try {");
+    line("      return " + listenerName + ".class.getMethod(name, parameterTypes);");
+    line("    } catch (java.lang.NoSuchMethodException e) {");
+    line("      throw new " + LIBRARY_PACKAGE + ".ProxyException(e);");
+    line("    }");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public " + listenerName + " newProxy(java.lang.reflect.InvocationHandler handler) {");
+    line("    return new FireProxy(handler);");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public " + LIBRARY_PACKAGE + ".MethodInvoker getInvoker("
+        + "java.lang.reflect.Method method) {");
+    line("    return INVOKERS.get(method);");
+    line("  }");
+    line("");
+    // Methods inherited from other interfaces are called through those interfaces' factories.
+    line("  private static java.util.Map<java.lang.reflect.Method, "
+        + LIBRARY_PACKAGE + ".MethodInvoker> invokers() {");
+    line("    java.util.Map<java.lang.reflect.Method, " + LIBRARY_PACKAGE
+        + ".MethodInvoker> invokers = new java.util.HashMap<>();");
+    for (int i = 0; i < methods.size(); i++) {
+      if (methods.get(i).getEnclosingElement().equals(listener)) {
+        writeInvoker(i, methods.get(i), listenerName);
+      }
+    }
+    line("    return invokers;");
+    line("  }");
+    line("");
+    line("  private static final class FireProxy implements " + listenerName + " {");
+    line("    private final java.lang.reflect.InvocationHandler handler;");
+    line("    private final " + LIBRARY_PACKAGE + ".DefaultInvocationHandler<?> direct;");
+    line("");
+    line("    FireProxy(java.lang.reflect.InvocationHandler handler) {");
+    line("      this.handler = handler;");
+    line("      this.direct = handler instanceof " + LIBRARY_PACKAGE + ".DefaultInvocationHandler");
+    line("          ? (" + LIBRARY_PACKAGE + ".DefaultInvocationHandler<?>) handler : null;");
+    line("    }");
+    for (int i = 0; i < methods.size(); i++) {
+      writeProxyMethod(i, methods.get(i), listenerName);
+    }
+    line("  }");
+    line("}");
+    return out.toString();
+  }
+
+  /**
+   * Collect every method which the proxy has to implement. Methods inherited from Object are left
+   * alone, and only the most specific of several override-equivalent methods is kept.
+   */
+  private List<ExecutableElement> collectMethods() {
+    List<ExecutableElement> methods = new ArrayList<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(listener))) {
+      if (method.getModifiers().contains(Modifier.STATIC)
+          || method.getModifiers().contains(Modifier.PRIVATE)
+          || method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+          || isObjectMethod(method)) {
+        continue;
+      }
+      addMostSpecific(methods, method);
+    }
+    return methods;
+  }
+
+  private void addMostSpecific(List<ExecutableElement> methods, ExecutableElement method) {
+    for (int i = 0; i < methods.size(); i++) {
+      ExecutableElement existing = methods.get(i);
+      if (hasSameErasure(existing, method)) {
+        TypeMirror existingOwner = existing.getEnclosingElement().asType();
+        TypeMirror owner = method.getEnclosingElement().asType();
+        if (types.isSubtype(types.erasure(owner), types.erasure(existingOwner))) {
+          methods.set(i, method);
+        }
+        return;
+      }
+    }
+    methods.add(method);
+  }
+
+  private boolean hasSameErasure(ExecutableElement a, ExecutableElement b) {
+    if (!a.getSimpleName().equals(b.getSimpleName())
+        || a.getParameters().size() != b.getParameters().size()) {
+      return false;
+    }
+    ExecutableType aType = memberType(a);
+    ExecutableType bType = memberType(b);
+    for (int i = 0; i < a.getParameters().size(); i++) {
+      TypeMirror aParam = types.erasure(aType.getParameterTypes().get(i));
+      TypeMirror bParam = types.erasure(bType.getParameterTypes().get(i));
+      if (!types.isSameType(aParam, bParam)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isObjectMethod(ExecutableElement method) {
+    String name = method.getSimpleName().toString();
+    int parameters = method.getParameters().size();
+    return (name.equals("equals") && parameters == 1
+            && method.getParameters().get(0).asType().toString().equals("java.lang.Object"))
+        || (name.equals("hashCode") && parameters == 0)
+        || (name.equals("toString") && parameters == 0);
+  }
+
+  private ExecutableType memberType(ExecutableElement method) {
+    return (ExecutableType) types.asMemberOf(listenerType, method);
+  }
+
+  private void writeMethodConstant(int index, ExecutableElement method) {
+    StringBuilder args = new StringBuilder("\"" + method.getSimpleName() + "\"");
+    // The reflective lookup uses the erasure of the declaration, not of the member type.
+    for (TypeMirror parameter : ((ExecutableType) method.asType()).getParameterTypes()) {
+      args.append(", ").append(render(types.erasure(parameter))).append(".class");
+    }
+    line("  private static final java.lang.reflect.Method " + constant(index)
+        + " = method(" + args + ");");
+  }
+
+  private void writeInvoker(int index, ExecutableElement method, String listenerName) {
+    ExecutableType type = memberType(method);
+    StringBuilder call = new StringBuilder("((" + listenerName + ") listener).");
+    call.append(method.getSimpleName()).append("(");
+    List<? extends TypeMirror> parameters = type.getParameterTypes();
+    for (int i = 0; i < parameters.size(); i++) {
+      if (i > 0) {
+        call.append(", ");
+      }
+      call.append("(").append(castType(types.erasure(parameters.get(i)))).append(") args[")
+          .append(i).append("]");
+    }
+    call.append(")");
+
+    if (type.getReturnType().getKind() == TypeKind.VOID) {
+      line("    invokers.put(" + constant(index) + ", (listener, args) -> {");
+      line("      " + call + ";");
+      line("      return null;");
+      line("    });");
+    } else {
+      line("    invokers.put(" + constant(index) + ", (listener, args) -> " + call + ");");
+    }
+  }
+
+  private void writeProxyMethod(int index, ExecutableElement method, String listenerName) {
+    ExecutableType type = memberType(method);
+    TypeMirror returnType = type.getReturnType();
+    List<? extends TypeMirror> parameters = type.getParameterTypes();
+
+    StringBuilder signature = new StringBuilder("public ");
+    List<? extends TypeVariable> typeVariables = type.getTypeVariables();
+    if (!typeVariables.isEmpty()) {
+      signature.append("<");
+      for (int i = 0; i < typeVariables.size(); i++) {
+        signature.append(i > 0 ? ", " : "").append(renderDeclaration(typeVariables.get(i)));
+      }
+      signature.append("> ");
+    }
+    signature.append(render(returnType)).append(" ").append(method.getSimpleName()).append("(");
+    StringBuilder args = new StringBuilder();
+    for (int i = 0; i < parameters.size(); i++) {
+      String parameter = render(parameters.get(i));
+      if (method.isVarArgs() && i == parameters.size() - 1) {
+        parameter = parameter.substring(0, parameter.length() - 2) + "...";
+      }
+      signature.append(i > 0 ? ", " : "").append(parameter).append(" arg").append(i);
+      args.append(i > 0 ? ", " : "").append("arg").append(i);
+    }
+    signature.append(")");
+
+    List<TypeMirror> rethrown = new ArrayList<>();
+    boolean throwsThrowable = false;
+    for (TypeMirror thrown : type.getThrownTypes()) {
+      if (thrown.getKind() == TypeKind.TYPEVAR) {
+        throw new UnsupportedMethodException(method,
+            "Listener methods can not throw type variables when using @GenerateListenerSupport");
+      }
+      throwsThrowable |= isType(thrown, "java.lang.Throwable");
+      addRethrown(rethrown, thrown);
+    }
+    if (!type.getThrownTypes().isEmpty()) {
+      signature.append(" throws ");
+      for (int i = 0; i < type.getThrownTypes().size(); i++) {
+        signature.append(i > 0 ? ", " : "").append(render(type.getThrownTypes().get(i)));
+      }
+    }
+
+    String argArray = parameters.isEmpty()
+        ? "null" : "new java.lang.Object[] {" + args + "}";
+    String invocation = "handler.invoke(this, " + constant(index) + ", " + argArray + ")";
+    String statement = returnType.getKind() == TypeKind.VOID
+        ? invocation + ";"
+        : "return (" + castType(returnType) + ") " + invocation + ";";
+
+    line("");
+    line("    @java.lang.Override");
+    line("    " + signature + " {");
+    if (returnType.getKind() == TypeKind.VOID) {
+      // Plain synchronous events call the listeners directly, without an argument array.
+      line("      if (direct != null) {");
+      line("        java.lang.Object[] listeners =");
+      line("            direct.directListeners(" + constant(index) + ");");
+      line("        if (listeners != null) {");
+      line("          for (java.lang.Object listener : listeners) {");
+      line("            ((" + listenerName + ") listener)." + method.getSimpleName()
+          + "(" + args + ");");
+      line("          }");
+      line("          return;");
+      line("        }");
+      line("      }");
+    }
+    if (throwsThrowable) {
+      line("      " + statement);
+    } else {
+      line("      try {");
+      line("        " + statement);
+      line("      } catch (java.lang.RuntimeException | java.lang.Error e) {");
+      line("        throw e;");
+      for (TypeMirror thrown : rethrown) {
+        line("      } catch (" + render(thrown) + " e) {");
+        line("        throw e;");
+      }
+      line("      } catch (java.lang.Throwable t) {");
+      line("        throw new java.lang.reflect.UndeclaredThrowableException(t);");
+      line("      }");
+    }
+    line("    }");
+  }
+
+  /**
+   * Add a declared exception to the list of exceptions which are rethrown as-is, unless it is
+   * already covered by an unchecked exception or another declared exception.
+   */
+  private void addRethrown(List<TypeMirror> rethrown, TypeMirror thrown) {
+    if (isSubtype(thrown, "java.lang.RuntimeException") || isSubtype(thrown, "java.lang.Error")) {
+      return;
+    }
+    for (int i = 0; i < rethrown.size(); i++) {
+      if (types.isSubtype(thrown, rethrown.get(i))) {
+        return;
+      }
+      if (types.isSubtype(rethrown.get(i), thrown)) {
+        rethrown.remove(i--);
+      }
+    }
+    rethrown.add(thrown);
+  }
+
+  private boolean isSubtype(TypeMirror type, String className) {
+    return types.isSubtype(type, elements.getTypeElement(className).asType());
+  }
+
+  private boolean isType(TypeMirror type, String className) {
+    return types.isSameType(type, elements.getTypeElement(className).asType());
+  }
+
+  /** Render the type to cast an Object to; primitive types are cast to their boxed types. */
+  private String castType(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+    }
+    return render(type);
+  }
+
+  private String renderDeclaration(TypeVariable variable) {
+    String name = variable.asElement().getSimpleName().toString();
+    TypeMirror bound = variable.getUpperBound();
+    if (bound.getKind() == TypeKind.INTERSECTION) {
+      StringBuilder bounds = new StringBuilder();
+      for (TypeMirror b : ((IntersectionType) bound).getBounds()) {
+        bounds.append(bounds.length() > 0 ? " & " : "").append(render(b));
+      }
+      return name + " extends " + bounds;
+    }
+    if (isType(bound, "java.lang.Object")) {
+      return name;
+    }
+    return name + " extends " + render(bound);
+  }
+
+  private String render(TypeMirror type) {
+    switch (type.getKind()) {
+      case ARRAY:
+        return render(((ArrayType) type).getComponentType()) + "[]";
+      case DECLARED:
+        DeclaredType declared = (DeclaredType) type;
+        StringBuilder name = new StringBuilder(
+            ((TypeElement) declared.asElement()).getQualifiedName().toString());
+        if (!declared.getTypeArguments().isEmpty()) {
+          name.append("<");
+          for (int i = 0; i < declared.getTypeArguments().size(); i++) {
+            name.append(i > 0 ? ", " : "").append(render(declared.getTypeArguments().get(i)));
+          }
+          name.append(">");
+        }
+        return name.toString();
+      case TYPEVAR:
+        return ((TypeVariable) type).asElement().getSimpleName().toString();
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        if (wildcard.getExtendsBound() != null) {
+          return "? extends " + render(wildcard.getExtendsBound());
+        }
+        if (wildcard.getSuperBound() != null) {
+          return "? super " + render(wildcard.getSuperBound());
+        }
+        return "?";
+      case VOID:
+        return "void";
+      default:
+        if (type.getKind().isPrimitive()) {
+          return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+        return type.toString();
+    }
+  }
+
+  private static String constant(int index) {
+    return "METHOD$" + index;
+  }
+
+  private void line(String text) {
+    out.append(text).append('\n');
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+/** The listener interface fired by the benchmarks, with methods of increasing arity. */
+public interface BenchmarkListener {
+  void noArgs();
+
+  void oneArg(Object a);
+
+  void threeArgs(Object a, int b, double c);
+
+  /**
+   * A listener which stores what it receives in fields, so that the calls can not be optimized
+   * away.
+   */
+  final class Consuming implements BenchmarkListener {
+    private final int index;
+    private Object lastArgument;
+    private double sum;
+
+    public Consuming(int index) {
+      this.index = index;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public void noArgs() {
+      sum += index;
+    }
+
+    @Override
+    public void oneArg(Object a) {
+      lastArgument = a;
+    }
+
+    @Override
+    public void threeArgs(Object a, int b, double c) {
+      lastArgument = a;
+      sum += b + c;
+    }
+  }
+
+  /** The kinds of ListenerSupport the benchmarks compare. */
+  enum Holder {
+    STRONG,
+    WEAK,
+    HIGH_CHURN;
+
+    ListenerSupport<BenchmarkListener> create() {
+      switch (this) {
+        case WEAK:
+          return ListenerSupport.createWeak(BenchmarkListener.class);
+        case HIGH_CHURN:
+          return ListenerSupport.createHighChurn(BenchmarkListener.class);
+        default:
+          return ListenerSupport.create(BenchmarkListener.class);
+      }
+    }
+  }
+}
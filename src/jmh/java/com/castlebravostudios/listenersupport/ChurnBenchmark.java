@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of registering and unregistering a listener while others stay registered, with
+ * and without an event fired in between, for each kind of holder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int listenerCount;
+
+  @Param({"STRONG", "WEAK", "HIGH_CHURN"})
+  public BenchmarkListener.Holder holder;
+
+  private ListenerSupport<BenchmarkListener> support;
+
+  /** Strong references to the listeners, so that weak holders do not lose them. */
+  private final List<BenchmarkListener> listeners = new ArrayList<>();
+
+  private BenchmarkListener churned;
+
+  @Setup
+  public void setUp() {
+    support = holder.create();
+    for (int i = 0; i < listenerCount; i++) {
+      BenchmarkListener listener = new BenchmarkListener.Consuming(i);
+      listeners.add(listener);
+      support.registerListener(listener);
+    }
+    churned = new BenchmarkListener.Consuming(-1);
+    support.prewarm();
+  }
+
+  @Benchmark
+  public void registerUnregister() {
+    support.registerListener(churned);
+    support.unregisterListener(churned);
+  }
+
+  @Benchmark
+  public void registerFireUnregister() {
+    support.registerListener(churned);
+    support.fire().noArgs();
+    support.unregisterListener(churned);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput and latency of firing a single event to a fixed set of listeners, for
+ * each kind of holder, filtered view and argument count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireBenchmark {
+
+  @Param({"1", "10", "100", "1000", "10000", "100000"})
+  public int listenerCount;
+
+  @Param({"STRONG", "WEAK", "HIGH_CHURN"})
+  public BenchmarkListener.Holder holder;
+
+  private ListenerSupport<BenchmarkListener> support;
+
+  private ListenerSupport<BenchmarkListener> filtered;
+
+  private ListenerSupport<BenchmarkListener> stableFiltered;
+
+  /** Strong references to the listeners, so that weak holders do not lose them. */
+  private final List<BenchmarkListener> listeners = new ArrayList<>();
+
+  private final Object argument = new Object();
+
+  @Setup
+  public void setUp() {
+    support = holder.create();
+    for (int i = 0; i < listenerCount; i++) {
+      BenchmarkListener listener = new BenchmarkListener.Consuming(i);
+      listeners.add(listener);
+      support.registerListener(listener);
+    }
+    ListenerFilter<BenchmarkListener> evenListeners =
+        listener -> ((BenchmarkListener.Consuming) listener).getIndex() % 2 == 0;
+    filtered = support.filter(evenListeners);
+    stableFiltered = support.filterStable(evenListeners);
+    support.prewarm();
+    filtered.prewarm();
+    stableFiltered.prewarm();
+  }
+
+  @Benchmark
+  public void fireNoArgs() {
+    support.fire().noArgs();
+  }
+
+  @Benchmark
+  public void fireOneArg() {
+    support.fire().oneArg(argument);
+  }
+
+  @Benchmark
+  public void fireThreeArgs() {
+    support.fire().threeArgs(argument, 42, 1.5);
+  }
+
+  @Benchmark
+  public void fireTypedNoArgs() {
+    support.fire(BenchmarkListener::noArgs);
+  }
+
+  @Benchmark
+  public void fireTypedOneArg() {
+    support.fire(BenchmarkListener::oneArg, argument);
+  }
+
+  @Benchmark
+  public void fireTypedDouble() {
+    support.fireDouble((listener, value) -> listener.threeArgs(listener, 42, value), 1.5);
+  }
+
+  @Benchmark
+  public void fireFiltered() {
+    filtered.fire().noArgs();
+  }
+
+  @Benchmark
+  public void fireStableFiltered() {
+    stableFiltered.fire().noArgs();
+  }
+
+  @Benchmark
+  public void fireInParallel() {
+    support.fireInParallel().noArgs();
+  }
+
+  @Benchmark
+  public void fireInParallelAsync() {
+    support.fireInParallelAsync(BenchmarkListener::noArgs).join();
+  }
+}
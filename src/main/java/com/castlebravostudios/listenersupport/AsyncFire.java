@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Delivers a single event to a snapshot of listeners on an executor and reports the outcome through
+ * a CompletableFuture. The listeners are split into tasks of a given size; every listener is called
+ * even if others fail, and the future completes once the last task has finished.
+ */
+final class AsyncFire<T> {
+  private final Object[] listeners;
+  private final Consumer<? super T> event;
+  private final CompletableFuture<Void> future = new CompletableFuture<>();
+  private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingTasks;
+
+  private AsyncFire(Object[] listeners, Consumer<? super T> event, int tasks) {
+    this.listeners = listeners;
+    this.event = event;
+    this.pendingTasks = new AtomicInteger(tasks);
+  }
+
+  /**
+   * Calls event on the given listeners in tasks of at most taskSize listeners each, running on the
+   * given executor. The returned future completes with a {@link ListenerFailureException} if any
+   * listener threw an exception, or with the exception thrown by the executor if it rejected a
+   * task.
+   */
+  static <T> CompletableFuture<Void> start(
+      Object[] listeners, Consumer<? super T> event, Executor executor, int taskSize) {
+    if (listeners.length == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    int tasks = (listeners.length + taskSize - 1) / taskSize;
+    AsyncFire<T> fire = new AsyncFire<>(listeners, event, tasks);
+    for (int from = 0; from < listeners.length; from += taskSize) {
+      int to = Math.min(listeners.length, from + taskSize);
+      try {
+        executor.execute(fire.new Task(from, to));
+      } catch (RuntimeException e) {
+        fire.future.completeExceptionally(e);
+        break;
+      }
+    }
+    return fire.future;
+  }
+
+  private void taskFinished() {
+    if (pendingTasks.decrementAndGet() != 0) {
+      return;
+    }
+    if (failures.isEmpty()) {
+      future.complete(null);
+    } else {
+      future.completeExceptionally(new ListenerFailureException(new ArrayList<>(failures)));
+    }
+  }
+
+  @RequiredArgsConstructor
+  private final class Task implements Runnable {
+    private final int from;
+    private final int to;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+      for (int i = from; i < to; i++) {
+        try {
+          event.accept((T) listeners[i]);
+        } catch (Throwable t) {
+          failures.add(t);
+        }
+      }
+      taskFinished();
+    }
+  }
+}
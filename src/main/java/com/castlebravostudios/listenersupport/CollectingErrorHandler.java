@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.common.base.Preconditions;
+
+/**
+ * A ListenerErrorHandler which keeps a bounded number of listener failures until they are drained,
+ * for example by a test or a health check. Failures which arrive while it is full are dropped and
+ * counted. This class is thread-safe.
+ */
+public final class CollectingErrorHandler implements ListenerErrorHandler {
+  private final BlockingQueue<Throwable> errors;
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  CollectingErrorHandler(int capacity) {
+    Preconditions.checkArgument(capacity > 0);
+    this.errors = new ArrayBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public void listenerFailed(Object listener, Method method, Throwable error) {
+    if (!errors.offer(error)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /** Removes and returns the failures collected so far, oldest first. */
+  public List<Throwable> drain() {
+    List<Throwable> result = new ArrayList<>();
+    errors.drainTo(result);
+    return result;
+  }
+
+  /** Returns the number of failures dropped because the handler was full. */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+}
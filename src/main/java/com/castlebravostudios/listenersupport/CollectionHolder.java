@@ -20,6 +20,10 @@
  */
 package com.castlebravostudios.listenersupport;
 
+import java.util.Collection;
+import java.util.List;
+import com.google.common.collect.Lists;
+
 /** Interface for classes that hold collections of listeners. */
 public interface CollectionHolder<T> extends Iterable<T> {
   /** Add a new listener to the collection */
@@ -30,4 +34,44 @@ public interface CollectionHolder<T> extends Iterable<T> {
 
   /** Return the number of registered listeners */
   int size();
+
+  /**
+   * Return whether no listeners are registered. Implementations whose size is guarded by a lock
+   * should override this to check without it.
+   */
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Add every listener in the given collection. Implementations should publish the change once,
+   * rather than once per listener.
+   */
+  default void registerAll(Collection<? extends T> listeners) {
+    for (T listener : listeners) {
+      registerListener(listener);
+    }
+  }
+
+  /**
+   * Remove every listener in the given collection. Implementations should publish the change once,
+   * rather than once per listener.
+   */
+  default void unregisterAll(Collection<? extends T> listeners) {
+    for (T listener : listeners) {
+      unregisterListener(listener);
+    }
+  }
+
+  /**
+   * Replace the registered listeners with those in the given collection. The default
+   * implementation unregisters and registers listeners one at a time, so concurrent events may see
+   * a mix of the old and new listeners; implementations should publish the change once.
+   */
+  default void replaceAll(Collection<? extends T> listeners) {
+    List<T> current = Lists.newArrayList(this);
+    current.removeAll(listeners);
+    unregisterAll(current);
+    registerAll(listeners);
+  }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import com.google.common.base.Preconditions;
+
+/**
+ * Invocation handler that delivers events asynchronously and replaces events which have not been
+ * delivered yet with newer calls of the same method, so that listeners only see the latest state.
+ * If a parameter of the method is marked with {@link ConflationKey}, only events with an equal
+ * argument for that parameter replace each other. Replaced events keep their place in the queue.
+ *
+ * <p>At most one drain task is queued or running on the executor given by {@link
+ * DispatchConfig#getAsyncExecutor()} at a time, so listeners are never called concurrently and
+ * never see an older value after a newer one. Each drain delivers every event pending when it
+ * runs, and queues another drain if more events arrived in the meantime.
+ */
+class ConflatingInvocationHandler<T> extends DefaultInvocationHandler<T> {
+  private static final int NO_KEY = -1;
+
+  private final ConcurrentMap<Method, Integer> keyParameters = new ConcurrentHashMap<>();
+
+  /** The pending events, by conflation key. Guarded by this. */
+  private Map<Object, PendingEvent> pending = new LinkedHashMap<>();
+
+  /** Whether a drain task is queued or running. Guarded by this. */
+  private boolean draining;
+
+  public ConflatingInvocationHandler(Iterable<T> listeners) {
+    super(listeners);
+  }
+
+  /** Returns the executor which the drain tasks run on. */
+  protected Executor getExecutor() {
+    return getConfig().getAsyncExecutor();
+  }
+
+  @Override
+  protected boolean offloadsQuarantined() {
+    return true;
+  }
+
+  @Override
+  protected void doIteration(Method method, Object[] args) throws Throwable {
+    Object key = conflationKey(method, args);
+    boolean queueDrain;
+    synchronized (this) {
+      PendingEvent event = pending.get(key);
+      if (event != null) {
+        event.args = args;
+      } else {
+        pending.put(key, new PendingEvent(method, args));
+      }
+      queueDrain = !draining;
+      draining = true;
+    }
+    if (queueDrain) {
+      queueDrain();
+    }
+  }
+
+  @Override
+  synchronized int getQueuedEventCount() {
+    return pending.size();
+  }
+
+  private void queueDrain() {
+    try {
+      getExecutor().execute(this::drain);
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        draining = false;
+      }
+      throw e;
+    }
+  }
+
+  private void drain() {
+    Map<Object, PendingEvent> events;
+    synchronized (this) {
+      events = pending;
+      pending = new LinkedHashMap<>();
+    }
+    for (PendingEvent event : events.values()) {
+      try {
+        iterateListeners(event.method, event.args);
+      } catch (Throwable t) {
+        reportError(null, event.method, t);
+      }
+    }
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        draining = false;
+        return;
+      }
+    }
+    try {
+      queueDrain();
+    } catch (RuntimeException e) {
+      // The pending events are delivered by the drain queued by the next event.
+      reportError(null, null, e);
+    }
+  }
+
+  private Object conflationKey(Method method, Object[] args) {
+    Integer parameter = keyParameters.get(method);
+    if (parameter == null) {
+      parameter = keyParameters.computeIfAbsent(method, ConflatingInvocationHandler::keyParameter);
+    }
+    if (parameter == NO_KEY) {
+      return method;
+    }
+    return Arrays.asList(method, args[parameter]);
+  }
+
+  private static int keyParameter(Method method) {
+    int result = NO_KEY;
+    Annotation[][] annotations = method.getParameterAnnotations();
+    for (int i = 0; i < annotations.length; i++) {
+      for (Annotation annotation : annotations[i]) {
+        if (annotation instanceof ConflationKey) {
+          Preconditions.checkArgument(
+              result == NO_KEY, "More than one @ConflationKey parameter on %s", method);
+          result = i;
+        }
+      }
+    }
+    return result;
+  }
+
+  private static final class PendingEvent {
+    private final Method method;
+    private Object[] args;
+
+    PendingEvent(Method method, Object[] args) {
+      this.method = method;
+      this.args = args;
+    }
+  }
+}
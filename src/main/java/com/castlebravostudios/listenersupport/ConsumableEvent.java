@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+/**
+ * Base class for event objects which listeners can consume to stop the event from reaching the
+ * remaining listeners. Consumption is honoured by {@link
+ * ListenerSupport#fireReducing(ResultReducer)} for the first argument of the fired method which is
+ * a ConsumableEvent. <br>
+ * Consuming an event is thread-safe, but an event should only be fired once.
+ */
+public class ConsumableEvent {
+  private volatile boolean consumed;
+
+  /** Stops this event from being delivered to any further listeners. */
+  public void consume() {
+    consumed = true;
+  }
+
+  public boolean isConsumed() {
+    return consumed;
+  }
+}
@@ -20,50 +20,100 @@
  */
 package com.castlebravostudios.listenersupport;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.concurrent.CopyOnWriteArraySet;
-import lombok.RequiredArgsConstructor;
-import com.google.common.collect.ForwardingIterator;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import com.google.common.collect.Iterators;
 
 /**
- * Default CollectionHolder. Holds listeners in a CopyOnWriteArraySet. <br>
+ * Default CollectionHolder. Holds listeners in a copy-on-write array which is replaced whenever a
+ * listener is registered or unregistered, and fired by looping over the current array. Bulk changes
+ * replace the array once. <br>
  * This class is thread-safe.
  */
-class CopyOnWriteSetHolder<T> implements CollectionHolder<T> {
-  private final CopyOnWriteArraySet<T> listeners = new CopyOnWriteArraySet<>();
+class CopyOnWriteSetHolder<T> implements SnapshotCollectionHolder<T> {
+  private static final Object[] EMPTY = new Object[0];
+
+  private volatile Object[] listeners = EMPTY;
 
   @Override
-  public void registerListener(T listener) {
-    listeners.add(listener);
+  public synchronized void registerListener(T listener) {
+    Object[] current = listeners;
+    if (indexOf(current, listener) < 0) {
+      Object[] updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = listener;
+      listeners = updated;
+    }
   }
 
   @Override
-  public void unregisterListener(T listener) {
-    listeners.remove(listener);
+  public synchronized void unregisterListener(T listener) {
+    Object[] current = listeners;
+    int index = indexOf(current, listener);
+    if (index >= 0) {
+      Object[] updated = new Object[current.length - 1];
+      System.arraycopy(current, 0, updated, 0, index);
+      System.arraycopy(current, index + 1, updated, index, updated.length - index);
+      listeners = updated;
+    }
   }
 
   @Override
-  public Iterator<T> iterator() {
-    return new UnmodifiableIterator(listeners.iterator());
+  public synchronized void registerAll(Collection<? extends T> added) {
+    Object[] current = listeners;
+    Set<Object> updated = new LinkedHashSet<>(Arrays.asList(current));
+    if (updated.addAll(added)) {
+      listeners = updated.toArray();
+    }
   }
 
   @Override
-  public int size() {
-    return listeners.size();
+  public synchronized void unregisterAll(Collection<? extends T> removed) {
+    Set<Object> remove = new HashSet<>(removed);
+    Object[] current = listeners;
+    Object[] updated = new Object[current.length];
+    int size = 0;
+    for (Object listener : current) {
+      if (!remove.contains(listener)) {
+        updated[size++] = listener;
+      }
+    }
+    if (size != current.length) {
+      listeners = Arrays.copyOf(updated, size);
+    }
   }
 
-  @RequiredArgsConstructor
-  private final class UnmodifiableIterator extends ForwardingIterator<T> {
-    private final Iterator<T> delegate;
+  @Override
+  public synchronized void replaceAll(Collection<? extends T> replacements) {
+    listeners = new LinkedHashSet<Object>(replacements).toArray();
+  }
 
-    @Override
-    protected Iterator<T> delegate() {
-      return delegate;
+  private static int indexOf(Object[] array, Object listener) {
+    for (int i = 0; i < array.length; i++) {
+      if (Objects.equals(array[i], listener)) {
+        return i;
+      }
     }
+    return -1;
+  }
 
-    @Override
-    public void remove() {
-      throw new UnsupportedOperationException();
-    }
+  @Override
+  public Object[] snapshot() {
+    return listeners;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<T> iterator() {
+    return Iterators.forArray((T[]) listeners);
+  }
+
+  @Override
+  public int size() {
+    return listeners.length;
   }
 }
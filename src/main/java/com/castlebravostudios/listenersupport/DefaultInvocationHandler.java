@@ -21,71 +21,352 @@
 package com.castlebravostudios.listenersupport;
 
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * This class implements the iteration and method invocation handling. If you need to change the way
  * events are dispatched to listeners, override this.
  *
- * <p>All subclasses MUST provide a one-argument constructor that takes an Iterable&lt;T&gt;.
+ * <p>All subclasses MUST provide a one-argument constructor that takes an Iterable&lt;T&gt;. The
+ * ListenerSupport which creates the handler passes its {@link DispatchConfig} in afterwards.
  */
 @RequiredArgsConstructor
 public class DefaultInvocationHandler<T> implements InvocationHandler {
+  /** For each handler class, whether it overrides invokeMethod. */
+  private static final ClassValue<Boolean> OVERRIDES_INVOKE_METHOD =
+      new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          for (Class<?> c = type; c != DefaultInvocationHandler.class; c = c.getSuperclass()) {
+            try {
+              c.getDeclaredMethod("invokeMethod", Object.class, Method.class, Object[].class);
+              return true;
+            } catch (NoSuchMethodException e) {
+              // Not declared here, so look at the superclass.
+            }
+          }
+          return false;
+        }
+      };
+
   @Getter private final Iterable<T> listeners;
 
+  private final boolean overridesInvokeMethod = OVERRIDES_INVOKE_METHOD.get(getClass());
+
+  private final ConcurrentMap<Method, MethodDispatch<T>> dispatches = new ConcurrentHashMap<>();
+
+  /** The configuration of the ListenerSupport this handler belongs to. */
+  @Getter(AccessLevel.PROTECTED)
+  @Setter(AccessLevel.PACKAGE)
+  private DispatchConfig config = DispatchConfig.global();
+
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    DispatchMetrics metrics = config.getMetrics();
+    if (metrics == null) {
+      return dispatchEvent(method, args);
+    }
+    long start = System.nanoTime();
+    try {
+      return dispatchEvent(method, args);
+    } finally {
+      metrics.forMethod(method).recordFire(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Delivers a fired event and returns the value the proxy returns to the firing code. By default,
+   * this calls {@link #doIteration(Method, Object[])} and returns null.
+   */
+  protected Object dispatchEvent(Method method, Object[] args) throws Throwable {
     doIteration(method, args);
     return null;
   }
 
   /**
    * This method performs the iteration over the listener set. Override this if you need to iterate
-   * over the set in a different way. Call invokeMethod on each listener, if possible.
+   * over the set in a different way. Call invokeMethod on each listener, if possible. By default,
+   * this calls {@link #iterateListeners(Method, Object[])} on the calling thread.
    */
   protected void doIteration(Method method, Object[] args) throws Throwable {
+    iterateListeners(method, args);
+  }
+
+  /**
+   * Calls invokeMethod for every listener which should receive the given method, on the calling
+   * thread. Listeners held by a {@link SnapshotCollectionHolder} are iterated by index over the
+   * current snapshot. Listeners which do not override a {@link NoOpDefault} method are skipped.
+   */
+  @SuppressWarnings("unchecked")
+  protected final void iterateListeners(Method method, Object[] args) throws Throwable {
+    MethodDispatch<T> dispatch = getDispatch(method);
+    ListenerCall call = prepareCall(dispatch, method);
+    SnapshotCollectionHolder<T> subscribers = dispatch.getSubscribers();
+    if (subscribers != null) {
+      Object[] snapshot = subscribers.snapshot();
+      for (int i = 0; i < snapshot.length; i++) {
+        invokeListener(call, (T) snapshot[i], args);
+      }
+    } else {
+      ListenerFilter<T> filter = dispatch.getSubscriptionFilter();
+      for (T listener : listeners) {
+        if (filter == null || filter.passesFilter(listener)) {
+          invokeListener(call, listener, args);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns an array of the listeners which should receive the given method. Use this when the
+   * listeners have to be captured before they are iterated, for example to hand them to another
+   * thread.
+   */
+  @SuppressWarnings("unchecked")
+  protected Object[] snapshotListeners(Method method) {
+    MethodDispatch<T> dispatch = getDispatch(method);
+    if (dispatch.getSubscribers() != null) {
+      return dispatch.getSubscribers().snapshot();
+    }
+    ListenerFilter<T> filter = dispatch.getSubscriptionFilter();
+    List<Object> snapshot = new ArrayList<>();
     for (T listener : listeners) {
-      invokeMethod(listener, method, args);
+      if (filter == null || filter.passesFilter(listener)) {
+        snapshot.add(listener);
+      }
     }
+    return snapshot.toArray();
   }
 
   /**
-   * This method is responsible for calling the listener method. Most implementations will need to
-   * override this method. If isWeak is true, this method will get the referent from the weak
-   * listener and use that, if it is non-null.
+   * Returns the listeners which the given method can be called on directly, or null if the event
+   * has to be fired through {@link #invoke(Object, Method, Object[])}. Proxies generated for
+   * interfaces annotated with {@link GenerateListenerSupport} use this to call listeners without
+   * allocating an argument array. Listeners are only returned for plain synchronous dispatch by
+   * this class itself, without a listener latency budget or metrics.
+   */
+  public final Object[] directListeners(Method method) {
+    if (getClass() != DefaultInvocationHandler.class
+        || config.getListenerMonitor() != null
+        || config.getMetrics() != null) {
+      return null;
+    }
+    SnapshotCollectionHolder<T> subscribers = getDispatch(method).getSubscribers();
+    return subscribers != null ? subscribers.snapshot() : null;
+  }
+
+  /**
+   * Hands the delivery of an event to the given executor, subject to the limit on outstanding
+   * events and the overflow policy set in the {@link DispatchConfig}. Asynchronous handlers should
+   * use this rather than calling the executor directly.
+   */
+  protected final void executeEvent(Executor executor, Runnable delivery) {
+    config.getEventGate().execute(executor, delivery, this);
+  }
+
+  /**
+   * Delivers an event on behalf of the firing thread when the queue of outstanding events is full
+   * and the policy is {@link OverflowPolicy#CALLER_RUNS}, or {@link OverflowPolicy#BLOCK} on a
+   * delivery thread. By default, this runs the delivery on the firing thread.
+   */
+  protected void runOnCaller(Runnable delivery) {
+    delivery.run();
+  }
+
+  /**
+   * Returns whether the calling thread is one which delivers this handler's events, and so must
+   * not wait for room in the queue of outstanding events. Threads delivering an event handed off
+   * through {@link #executeEvent(Executor, Runnable)} are always treated as delivery threads. By
+   * default, this returns false.
+   */
+  protected boolean isDeliveryThread() {
+    return false;
+  }
+
+  /**
+   * Hands an exception thrown by a listener to the {@link ListenerErrorHandler} set in the {@link
+   * DispatchConfig}. Handlers which do not propagate listener exceptions to the firing code should
+   * report them here. listener and method may be null if they are not known.
+   */
+  protected final void reportError(Object listener, Method method, Throwable error) {
+    config.reportListenerFailure(listener, method, error);
+  }
+
+  /**
+   * This method is responsible for calling the listener method. The method is called through a
+   * MethodInvoker which is looked up the first time the method is fired and reused afterwards, so
+   * exceptions thrown by the listener are propagated without being wrapped. If a listener latency
+   * budget is set in the {@link DispatchConfig}, the call is timed and may be quarantined, and if
+   * metrics are enabled, the call is counted.
    */
   protected void invokeMethod(T listener, Method method, Object[] args) throws Throwable {
-    try {
-      method.invoke(listener, args);
-    } catch (InvocationTargetException e) {
-      throw e.getTargetException();
+    invokeForResult(listener, method, args);
+  }
+
+  /**
+   * Calls the listener method like {@link #invokeMethod(Object, Method, Object[])} and returns what
+   * the listener returned. Quarantined listeners whose calls are offloaded or suspended return
+   * null.
+   */
+  protected final Object invokeForResult(T listener, Method method, Object[] args)
+      throws Throwable {
+    return prepareCall(method).invoke(listener, args);
+  }
+
+  /**
+   * Resolves how listeners are called for an event of the given method. Handlers which call many
+   * listeners for one event should resolve this once and call {@link ListenerCall#invoke(Object,
+   * Object[])} or {@link #invokeListener(ListenerCall, Object, Object[])} for each listener.
+   */
+  final ListenerCall prepareCall(Method method) {
+    return prepareCall(getDispatch(method), method);
+  }
+
+  private ListenerCall prepareCall(MethodDispatch<T> dispatch, Method method) {
+    DispatchMetrics metrics = config.getMetrics();
+    return new ListenerCall(
+        dispatch.getInvoker(),
+        config.getListenerMonitor(),
+        metrics != null ? metrics.forMethod(method) : null,
+        method,
+        offloadsQuarantined());
+  }
+
+  /**
+   * Calls the listener through the prepared call, or through {@link #invokeMethod(Object, Method,
+   * Object[])} if a subclass overrides it.
+   */
+  final void invokeListener(ListenerCall call, T listener, Object[] args) throws Throwable {
+    if (overridesInvokeMethod) {
+      invokeMethod(listener, call.getMethod(), args);
+    } else {
+      call.invoke(listener, args);
     }
   }
 
   /**
-   * Runnable class that simply calls doIteration. Use this to put the iteration on a different
-   * thread. If the iteration throws an exception, it will be printed to {@link System#err},
-   * captured and stored in exception.
+   * Returns whether calls to quarantined listeners may be moved to the quarantine executor when the
+   * quarantine action is {@link QuarantineAction#OFFLOAD}. Handlers which deliver on a particular
+   * thread, in order, synchronously or for a result return false, and suspend quarantined listeners
+   * instead. By default, this returns false.
+   */
+  protected boolean offloadsQuarantined() {
+    return false;
+  }
+
+  /**
+   * Returns the number of events this handler has queued itself and not delivered yet, for {@link
+   * DispatchStatistics}. Events handed to an executor are not counted here. By default, this
+   * returns 0.
+   */
+  int getQueuedEventCount() {
+    return 0;
+  }
+
+  /**
+   * Returns whether this handler has to be told about unregistered listeners through {@link
+   * #listenersUnregistered(Iterable)}. By default, this returns false.
+   */
+  boolean tracksUnregistration() {
+    return false;
+  }
+
+  /**
+   * Called by the ListenerSupport after the given listeners have been unregistered, if {@link
+   * #tracksUnregistration()} returns true.
+   */
+  void listenersUnregistered(Iterable<?> listeners) {}
+
+  /** Set up the dispatch of the given methods ahead of the first event. */
+  void prepare(Method[] methods) {
+    for (Method method : methods) {
+      getDispatch(method);
+    }
+  }
+
+  private MethodDispatch<T> getDispatch(Method method) {
+    MethodDispatch<T> dispatch = dispatches.get(method);
+    if (dispatch == null) {
+      dispatch = dispatches.computeIfAbsent(method, m -> new MethodDispatch<>(m, listeners));
+    }
+    return dispatch;
+  }
+
+  /**
+   * Runnable class that simply calls iterateListeners. Use this to put the iteration on a different
+   * thread. If the iteration throws an exception, it will be captured, stored in exception and,
+   * unless the caller rethrows it itself, reported with {@link #reportError(Object, Method,
+   * Throwable)}.
    */
-  @RequiredArgsConstructor
   protected class InvocationHandlerRunnable implements Runnable {
 
     @Getter private Throwable exception;
     private final Method method;
     private final Object[] args;
+    private final boolean reportErrors;
+
+    public InvocationHandlerRunnable(Method method, Object[] args) {
+      this(method, args, true);
+    }
+
+    /** Creates a runnable which only captures exceptions if reportErrors is false. */
+    public InvocationHandlerRunnable(Method method, Object[] args, boolean reportErrors) {
+      this.method = method;
+      this.args = args;
+      this.reportErrors = reportErrors;
+    }
 
     @Override
     public void run() {
       try {
-        doIteration(method, args);
+        iterateListeners(method, args);
       } catch (Throwable t) {
-        //This should not happen.
         exception = t;
-        t.printStackTrace();
+        if (reportErrors) {
+          reportError(null, method, t);
+        }
+      }
+    }
+  }
+
+  /** How the listeners are called for one event, resolved once rather than for every listener. */
+  @RequiredArgsConstructor
+  static final class ListenerCall {
+    private final MethodInvoker invoker;
+    private final ListenerMonitor monitor;
+    private final DispatchMetrics.MethodMetrics metrics;
+    @Getter private final Method method;
+    private final boolean mayOffload;
+
+    /** Calls the listener and returns what it returned, counting the call if metrics are on. */
+    Object invoke(Object listener, Object[] args) throws Throwable {
+      if (metrics == null) {
+        return call(listener, args);
+      }
+      boolean failed = true;
+      try {
+        Object result = call(listener, args);
+        failed = false;
+        return result;
+      } finally {
+        metrics.recordInvocation(failed);
+      }
+    }
+
+    private Object call(Object listener, Object[] args) throws Throwable {
+      if (monitor == null) {
+        return invoker.invoke(listener, args);
       }
+      return monitor.invoke(invoker, listener, method, args, mayOffload);
     }
   }
 }
@@ -0,0 +1,545 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Settings which control how a ListenerSupport dispatches events. Every ListenerSupport has its own
+ * DispatchConfig, shared with the filtered views created from it. Settings which have not been
+ * changed on a ListenerSupport's configuration fall back to the global configuration returned by
+ * {@link #global()}, so defaults can be changed for all ListenerSupports at once. <br>
+ * This class is thread-safe.
+ */
+public final class DispatchConfig {
+  /** The default number of listeners below which parallel dispatch stops splitting work. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 16;
+
+  /** The default number of events buffered by {@link ListenerSupport#fireBuffered()}. */
+  public static final int DEFAULT_RING_BUFFER_SIZE = 1024;
+
+  private static final DispatchConfig GLOBAL = new DispatchConfig(null);
+
+  static {
+    GLOBAL.setParallelPool(ForkJoinPool.commonPool());
+    GLOBAL.setParallelThreshold(DEFAULT_PARALLEL_THRESHOLD);
+    GLOBAL.setAsyncExecutor(newDefaultAsyncExecutor());
+    GLOBAL.setRingBufferSize(DEFAULT_RING_BUFFER_SIZE);
+    GLOBAL.setRingBufferWaitStrategy(WaitStrategy.PARK);
+    GLOBAL.setEdtBatchSize(Integer.MAX_VALUE);
+    GLOBAL.setEdtTimeBudget(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    GLOBAL.setAsyncQueueCapacity(Integer.MAX_VALUE);
+    GLOBAL.setOverflowPolicy(OverflowPolicy.BLOCK);
+    GLOBAL.setListenerLatencyBudget(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    GLOBAL.setSlowListenerHandler(
+        SlowListenerHandler.rateLimited(SlowListenerHandler.logging(), 1, TimeUnit.MINUTES));
+    GLOBAL.setQuarantineThreshold(Integer.MAX_VALUE);
+    GLOBAL.setQuarantineAction(QuarantineAction.OFFLOAD);
+    GLOBAL.setQuarantineExecutor(newQuarantineExecutor());
+    GLOBAL.setMetricsEnabled(false);
+    GLOBAL.setErrorHandler(
+        ListenerErrorHandler.rateLimited(ListenerErrorHandler.logging(), 1, TimeUnit.MINUTES));
+  }
+
+  /** The configuration to fall back to for unset values, or null for the global configuration. */
+  private final DispatchConfig parent;
+
+  private volatile ForkJoinPool parallelPool;
+
+  private volatile int parallelThreshold;
+
+  private volatile Executor asyncExecutor;
+
+  private volatile int ringBufferSize;
+
+  private volatile WaitStrategy ringBufferWaitStrategy;
+
+  private volatile int edtBatchSize;
+
+  private volatile long edtTimeBudgetNanos;
+
+  private volatile int asyncQueueCapacity;
+
+  private volatile OverflowPolicy overflowPolicy;
+
+  private final EventGate eventGate = new EventGate(this);
+
+  private volatile long listenerLatencyBudgetNanos;
+
+  private volatile SlowListenerHandler slowListenerHandler;
+
+  private volatile int quarantineThreshold;
+
+  private volatile QuarantineAction quarantineAction;
+
+  private volatile Executor quarantineExecutor;
+
+  private final ListenerMonitor listenerMonitor = new ListenerMonitor(this);
+
+  private volatile Boolean metricsEnabled;
+
+  private final DispatchMetrics metrics = new DispatchMetrics();
+
+  private volatile ListenerErrorHandler errorHandler;
+
+  DispatchConfig(DispatchConfig parent) {
+    this.parent = parent;
+  }
+
+  /** Returns the configuration used by every ListenerSupport for settings it does not change. */
+  public static DispatchConfig global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the pool which {@link ListenerSupport#fireInParallel()} runs listeners on. Unless
+   * changed, this is the {@link ForkJoinPool#commonPool() common pool}.
+   */
+  public ForkJoinPool getParallelPool() {
+    ForkJoinPool pool = parallelPool;
+    return pool != null ? pool : parent.getParallelPool();
+  }
+
+  /**
+   * Sets the pool which {@link ListenerSupport#fireInParallel()} runs listeners on. Pools are never
+   * shut down by this library, so a single pool can be shared by any number of ListenerSupports.
+   * Passing null restores the global setting.
+   */
+  public void setParallelPool(ForkJoinPool parallelPool) {
+    Preconditions.checkArgument(parallelPool != null || parent != null);
+    this.parallelPool = parallelPool;
+  }
+
+  /**
+   * Returns the largest number of listeners which {@link ListenerSupport#fireInParallel()} runs
+   * in a single task. Larger listener sets are split in half recursively until each part is no
+   * larger than this.
+   */
+  public int getParallelThreshold() {
+    int threshold = parallelThreshold;
+    return threshold > 0 ? threshold : parent.getParallelThreshold();
+  }
+
+  /**
+   * Sets the largest number of listeners which {@link ListenerSupport#fireInParallel()} runs in a
+   * single task. Small values suit slow listeners, larger values suit cheap listeners. Passing 0
+   * restores the global setting.
+   */
+  public void setParallelThreshold(int parallelThreshold) {
+    Preconditions.checkArgument(
+        parallelThreshold > 0 || (parallelThreshold == 0 && parent != null));
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Returns the executor which {@link ListenerSupport#fireOnWtLater()} delivers events on. Unless
+   * changed, this is a pool of daemon threads with one thread per processor, whose threads stop
+   * when they have been idle for a minute.
+   */
+  public Executor getAsyncExecutor() {
+    Executor executor = asyncExecutor;
+    return executor != null ? executor : parent.getAsyncExecutor();
+  }
+
+  /**
+   * Sets the executor which {@link ListenerSupport#fireOnWtLater()} delivers events on. Executors
+   * are never shut down by this library. Passing null restores the global setting.
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    Preconditions.checkArgument(asyncExecutor != null || parent != null);
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Returns the number of events the buffer behind {@link ListenerSupport#fireBuffered()} holds.
+   * Threads firing events into a full buffer wait until the consumer has made room.
+   */
+  public int getRingBufferSize() {
+    int size = ringBufferSize;
+    return size > 0 ? size : parent.getRingBufferSize();
+  }
+
+  /**
+   * Sets the number of events the buffer behind {@link ListenerSupport#fireBuffered()} holds,
+   * which must be a power of two. The buffer is created when the first event is fired, so later
+   * changes do not affect it. Passing 0 restores the global setting.
+   */
+  public void setRingBufferSize(int ringBufferSize) {
+    Preconditions.checkArgument(
+        (ringBufferSize > 0 && Integer.bitCount(ringBufferSize) == 1)
+            || (ringBufferSize == 0 && parent != null));
+    this.ringBufferSize = ringBufferSize;
+  }
+
+  /**
+   * Returns how the threads on either side of {@link ListenerSupport#fireBuffered()} wait for
+   * events or for room. Unless changed, this is {@link WaitStrategy#PARK}.
+   */
+  public WaitStrategy getRingBufferWaitStrategy() {
+    WaitStrategy strategy = ringBufferWaitStrategy;
+    return strategy != null ? strategy : parent.getRingBufferWaitStrategy();
+  }
+
+  /**
+   * Sets how the threads on either side of {@link ListenerSupport#fireBuffered()} wait for events
+   * or for room. Like the size, this is read when the buffer is created. Passing null restores the
+   * global setting.
+   */
+  public void setRingBufferWaitStrategy(WaitStrategy ringBufferWaitStrategy) {
+    Preconditions.checkArgument(ringBufferWaitStrategy != null || parent != null);
+    this.ringBufferWaitStrategy = ringBufferWaitStrategy;
+  }
+
+  /**
+   * Returns the largest number of events {@link ListenerSupport#fireOnEdtLater()} delivers in a
+   * single task on the event dispatch thread. Unless changed, there is no limit.
+   */
+  public int getEdtBatchSize() {
+    int size = edtBatchSize;
+    return size > 0 ? size : parent.getEdtBatchSize();
+  }
+
+  /**
+   * Sets the largest number of events {@link ListenerSupport#fireOnEdtLater()} delivers in a single
+   * task on the event dispatch thread. The remaining events are delivered by another task, queued
+   * behind the work posted in the meantime. Passing 0 restores the global setting.
+   */
+  public void setEdtBatchSize(int edtBatchSize) {
+    Preconditions.checkArgument(edtBatchSize > 0 || (edtBatchSize == 0 && parent != null));
+    this.edtBatchSize = edtBatchSize;
+  }
+
+  /**
+   * Returns how long, in nanoseconds, a single task of {@link ListenerSupport#fireOnEdtLater()}
+   * keeps delivering events on the event dispatch thread. Unless changed, there is no limit.
+   */
+  public long getEdtTimeBudgetNanos() {
+    long budget = edtTimeBudgetNanos;
+    return budget > 0 ? budget : parent.getEdtTimeBudgetNanos();
+  }
+
+  /**
+   * Sets how long a single task of {@link ListenerSupport#fireOnEdtLater()} keeps delivering events
+   * on the event dispatch thread. At least one event is delivered per task, and the time is only
+   * checked between events. Passing 0 restores the global setting.
+   */
+  public void setEdtTimeBudget(long edtTimeBudget, TimeUnit unit) {
+    Preconditions.checkArgument(edtTimeBudget > 0 || (edtTimeBudget == 0 && parent != null));
+    this.edtTimeBudgetNanos = unit.toNanos(edtTimeBudget);
+  }
+
+  /**
+   * Returns the largest number of events which the asynchronous fire methods {@link
+   * ListenerSupport#fireOnWtLater()}, {@link ListenerSupport#fireOnEdtLater()} and {@link
+   * ListenerSupport#fireInParallel()} may have fired but not yet delivered, across all of them.
+   * Unless changed, this is {@link Integer#MAX_VALUE}, which means there is no limit.
+   */
+  public int getAsyncQueueCapacity() {
+    int capacity = asyncQueueCapacity;
+    return capacity > 0 ? capacity : parent.getAsyncQueueCapacity();
+  }
+
+  /**
+   * Sets the largest number of events which the asynchronous fire methods may have fired but not
+   * yet delivered. Once this many events are outstanding, new events are handled according to
+   * {@link #getOverflowPolicy()}. The limit is shared by the ListenerSupport and its filtered
+   * views, but not with other ListenerSupports, even if it is set globally. Passing 0 restores the
+   * global setting.
+   */
+  public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+    Preconditions.checkArgument(
+        asyncQueueCapacity > 0 || (asyncQueueCapacity == 0 && parent != null));
+    this.asyncQueueCapacity = asyncQueueCapacity;
+  }
+
+  /**
+   * Returns what happens to events fired while {@link #getAsyncQueueCapacity()} events are
+   * outstanding. Unless changed, this is {@link OverflowPolicy#BLOCK}.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    OverflowPolicy policy = overflowPolicy;
+    return policy != null ? policy : parent.getOverflowPolicy();
+  }
+
+  /**
+   * Sets what happens to events fired while {@link #getAsyncQueueCapacity()} events are
+   * outstanding. Passing null restores the global setting.
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    Preconditions.checkArgument(overflowPolicy != null || parent != null);
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Returns the number of events fired through this configuration which have been handed off but
+   * not delivered yet. Events are only counted while {@link #getAsyncQueueCapacity()} is limited.
+   */
+  public int getPendingEventCount() {
+    return eventGate.getPendingCount();
+  }
+
+  /**
+   * Returns the number of events fired through this configuration which were dropped or delivered
+   * on the firing thread because {@link #getAsyncQueueCapacity()} had been reached.
+   */
+  public long getRejectedEventCount() {
+    return eventGate.getRejectedCount();
+  }
+
+  EventGate getEventGate() {
+    return eventGate;
+  }
+
+  /**
+   * Returns how long, in nanoseconds, a listener may take to handle an event before it is reported
+   * to {@link #getSlowListenerHandler()}. Unless changed, this is {@link Long#MAX_VALUE}, which
+   * turns timing off entirely.
+   */
+  public long getListenerLatencyBudgetNanos() {
+    long budget = listenerLatencyBudgetNanos;
+    return budget > 0 ? budget : parent.getListenerLatencyBudgetNanos();
+  }
+
+  /**
+   * Sets how long a listener may take to handle an event before it is reported as slow. Setting a
+   * budget makes every fire method time each listener call with {@link System#nanoTime()}. Passing
+   * 0 restores the global setting.
+   */
+  public void setListenerLatencyBudget(long listenerLatencyBudget, TimeUnit unit) {
+    Preconditions.checkArgument(
+        listenerLatencyBudget > 0 || (listenerLatencyBudget == 0 && parent != null));
+    this.listenerLatencyBudgetNanos = unit.toNanos(listenerLatencyBudget);
+  }
+
+  /**
+   * Returns the handler told about listeners which exceed the latency budget. Unless changed, this
+   * logs the slow calls of each listener class and method at most once a minute, and every
+   * quarantine, to java.util.logging.
+   */
+  public SlowListenerHandler getSlowListenerHandler() {
+    SlowListenerHandler handler = slowListenerHandler;
+    return handler != null ? handler : parent.getSlowListenerHandler();
+  }
+
+  /**
+   * Sets the handler told about listeners which exceed the latency budget. Passing null restores
+   * the global setting.
+   */
+  public void setSlowListenerHandler(SlowListenerHandler slowListenerHandler) {
+    Preconditions.checkArgument(slowListenerHandler != null || parent != null);
+    this.slowListenerHandler = slowListenerHandler;
+  }
+
+  /**
+   * Returns how many times a listener may exceed the latency budget before it is quarantined.
+   * Unless changed, this is {@link Integer#MAX_VALUE}, which means listeners are never quarantined.
+   */
+  public int getQuarantineThreshold() {
+    int threshold = quarantineThreshold;
+    return threshold > 0 ? threshold : parent.getQuarantineThreshold();
+  }
+
+  /**
+   * Sets how many times a listener may exceed the latency budget before it is quarantined, after
+   * which its events are handled according to {@link #getQuarantineAction()}. Passing 0 restores
+   * the global setting.
+   */
+  public void setQuarantineThreshold(int quarantineThreshold) {
+    Preconditions.checkArgument(
+        quarantineThreshold > 0 || (quarantineThreshold == 0 && parent != null));
+    this.quarantineThreshold = quarantineThreshold;
+  }
+
+  /**
+   * Returns what happens to events for quarantined listeners. Unless changed, this is {@link
+   * QuarantineAction#OFFLOAD}.
+   */
+  public QuarantineAction getQuarantineAction() {
+    QuarantineAction action = quarantineAction;
+    return action != null ? action : parent.getQuarantineAction();
+  }
+
+  /**
+   * Sets what happens to events for quarantined listeners. Passing null restores the global
+   * setting.
+   */
+  public void setQuarantineAction(QuarantineAction quarantineAction) {
+    Preconditions.checkArgument(quarantineAction != null || parent != null);
+    this.quarantineAction = quarantineAction;
+  }
+
+  /**
+   * Returns the executor which delivers events to quarantined listeners when the quarantine action
+   * is {@link QuarantineAction#OFFLOAD}. Unless changed, this is a single daemon thread of minimum
+   * priority, shared by all ListenerSupports.
+   */
+  public Executor getQuarantineExecutor() {
+    Executor executor = quarantineExecutor;
+    return executor != null ? executor : parent.getQuarantineExecutor();
+  }
+
+  /**
+   * Sets the executor which delivers events to quarantined listeners. Executors are never shut
+   * down by this library. Passing null restores the global setting.
+   */
+  public void setQuarantineExecutor(Executor quarantineExecutor) {
+    Preconditions.checkArgument(quarantineExecutor != null || parent != null);
+    this.quarantineExecutor = quarantineExecutor;
+  }
+
+  /** Returns the listeners which have been quarantined by this configuration. */
+  public Set<Object> getQuarantinedListeners() {
+    return listenerMonitor.getQuarantined();
+  }
+
+  /**
+   * Releases the given listener from quarantine and forgets how often it exceeded the latency
+   * budget. Returns whether the listener was quarantined.
+   */
+  public boolean releaseFromQuarantine(Object listener) {
+    return listenerMonitor.release(listener);
+  }
+
+  /** Returns the monitor which times listener calls, or null if timing is turned off. */
+  ListenerMonitor getListenerMonitor() {
+    return getListenerLatencyBudgetNanos() == Long.MAX_VALUE ? null : listenerMonitor;
+  }
+
+  /**
+   * Returns whether the fire methods record per-method statistics, which are available from {@link
+   * ListenerSupport#getStatistics()}. Unless changed, they do not.
+   */
+  public boolean isMetricsEnabled() {
+    Boolean enabled = metricsEnabled;
+    return enabled != null ? enabled : parent.isMetricsEnabled();
+  }
+
+  /**
+   * Sets whether the fire methods record per-method statistics. Recording counts every event and
+   * listener call and times every event with {@link System#nanoTime()}. Statistics recorded so far
+   * are kept when recording is turned off. Passing null restores the global setting.
+   */
+  public void setMetricsEnabled(Boolean metricsEnabled) {
+    Preconditions.checkArgument(metricsEnabled != null || parent != null);
+    this.metricsEnabled = metricsEnabled;
+  }
+
+  /** Returns the recorded statistics, or null if recording is turned off. */
+  DispatchMetrics getMetrics() {
+    return isMetricsEnabled() ? metrics : null;
+  }
+
+  /** Returns the statistics recorded so far, whether or not recording is turned on. */
+  Map<String, MethodStatistics> getMethodStatistics() {
+    return metrics.snapshot();
+  }
+
+  /**
+   * Returns the handler for exceptions thrown by listeners during fire methods which do not
+   * propagate them to the firing code. Unless changed, failures are logged to java.util.logging,
+   * and each distinct kind of failure at most once a minute.
+   */
+  public ListenerErrorHandler getErrorHandler() {
+    ListenerErrorHandler handler = errorHandler;
+    return handler != null ? handler : parent.getErrorHandler();
+  }
+
+  /**
+   * Sets the handler for exceptions thrown by listeners during fire methods which do not propagate
+   * them to the firing code. Passing null restores the global setting.
+   */
+  public void setErrorHandler(ListenerErrorHandler errorHandler) {
+    Preconditions.checkArgument(errorHandler != null || parent != null);
+    this.errorHandler = errorHandler;
+  }
+
+  /**
+   * Hands a listener failure to the error handler. If the error handler throws, its exception is
+   * passed to the uncaught exception handler of the current thread instead, so that a failing error
+   * handler can not stop the thread which delivers events.
+   */
+  void reportListenerFailure(Object listener, Method method, Throwable error) {
+    try {
+      getErrorHandler().listenerFailed(listener, method, error);
+    } catch (Throwable t) {
+      if (t != error) {
+        t.addSuppressed(error);
+      }
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+  }
+
+  private static Executor newQuarantineExecutor() {
+    return Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setPriority(Thread.MIN_PRIORITY)
+            .setNameFormat("listener-support-quarantine-%d")
+            .build());
+  }
+
+  private static Executor newDefaultAsyncExecutor() {
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            1,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("listener-support-worker-%d")
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Returns an executor which runs every task on a new virtual thread, for use with {@link
+   * #setAsyncExecutor(Executor)}. Virtual threads are cheap enough that a burst of events does not
+   * have to queue up behind a bounded pool.
+   *
+   * @throws UnsupportedOperationException if the running JVM does not support virtual threads.
+   */
+  public static Executor newVirtualThreadExecutor() {
+    try {
+      return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+    } catch (InvocationTargetException e) {
+      throw new UnsupportedOperationException(
+          "Virtual threads are not supported by this JVM", e.getTargetException());
+    }
+  }
+}
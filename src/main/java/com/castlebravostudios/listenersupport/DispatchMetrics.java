@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records what the fire methods of a DispatchConfig do, per listener method. All counters are
+ * striped {@link LongAdder}s, so threads firing events concurrently do not contend on them.
+ */
+final class DispatchMetrics {
+  private final ConcurrentMap<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+  MethodMetrics forMethod(Method method) {
+    MethodMetrics metrics = methods.get(method);
+    if (metrics == null) {
+      metrics = methods.computeIfAbsent(method, m -> new MethodMetrics());
+    }
+    return metrics;
+  }
+
+  /** Returns the statistics of every method fired so far, by method name and parameter types. */
+  Map<String, MethodStatistics> snapshot() {
+    Map<String, MethodStatistics> result = new TreeMap<>();
+    for (Map.Entry<Method, MethodMetrics> entry : methods.entrySet()) {
+      result.put(describe(entry.getKey()), entry.getValue().snapshot());
+    }
+    return result;
+  }
+
+  private static String describe(Method method) {
+    StringBuilder builder = new StringBuilder(method.getName()).append('(');
+    Class<?>[] parameters = method.getParameterTypes();
+    for (int i = 0; i < parameters.length; i++) {
+      builder.append(i == 0 ? "" : ", ").append(parameters[i].getSimpleName());
+    }
+    return builder.append(')').toString();
+  }
+
+  static final class MethodMetrics {
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** Bucket i counts the fires which took less than 2^i nanoseconds, but at least 2^(i-1). */
+    private final LongAdder[] latencyBuckets = new LongAdder[MethodStatistics.BUCKETS];
+
+    MethodMetrics() {
+      for (int i = 0; i < latencyBuckets.length; i++) {
+        latencyBuckets[i] = new LongAdder();
+      }
+    }
+
+    void recordFire(long elapsedNanos) {
+      long nanos = Math.max(0, elapsedNanos);
+      fires.increment();
+      totalNanos.add(nanos);
+      latencyBuckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    void recordInvocation(boolean failed) {
+      invocations.increment();
+      if (failed) {
+        failures.increment();
+      }
+    }
+
+    MethodStatistics snapshot() {
+      long[] buckets = new long[latencyBuckets.length];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = latencyBuckets[i].sum();
+      }
+      return new MethodStatistics(
+          fires.sum(), invocations.sum(), failures.sum(), totalNanos.sum(), buckets);
+    }
+  }
+}
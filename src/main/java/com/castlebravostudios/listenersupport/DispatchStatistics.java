@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Collections;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * A snapshot of the statistics of a ListenerSupport, as returned by {@link
+ * ListenerSupport#getStatistics()}. Per-method statistics are only recorded while {@link
+ * DispatchConfig#isMetricsEnabled()} is set.
+ */
+@Getter
+public final class DispatchStatistics {
+
+  /** The number of listeners registered when the snapshot was taken. */
+  private final int listenerCount;
+
+  /**
+   * The number of events handed off to asynchronous fire methods but not delivered yet. This is
+   * only counted while {@link DispatchConfig#getAsyncQueueCapacity()} is limited.
+   */
+  private final int pendingEvents;
+
+  /** The number of events in the ring buffer of {@link ListenerSupport#fireBuffered()}. */
+  private final int bufferedEvents;
+
+  /** The number of events waiting in the mailboxes of {@link ListenerSupport#fireToMailboxes()}. */
+  private final int mailboxEvents;
+
+  /** The number of events queued by {@link ListenerSupport#fireOnEdtLater()} for the EDT. */
+  private final int edtQueuedEvents;
+
+  /** The number of events waiting to be delivered by the conflating fire methods. */
+  private final int conflatedEvents;
+
+  /** The number of events dropped or delivered on the firing thread because of back-pressure. */
+  private final long rejectedEvents;
+
+  /** The statistics of each listener method, by method name and parameter types. */
+  private final Map<String, MethodStatistics> methods;
+
+  DispatchStatistics(
+      int listenerCount,
+      int pendingEvents,
+      long rejectedEvents,
+      int bufferedEvents,
+      int mailboxEvents,
+      int edtQueuedEvents,
+      int conflatedEvents,
+      Map<String, MethodStatistics> methods) {
+    this.listenerCount = listenerCount;
+    this.pendingEvents = pendingEvents;
+    this.rejectedEvents = rejectedEvents;
+    this.bufferedEvents = bufferedEvents;
+    this.mailboxEvents = mailboxEvents;
+    this.edtQueuedEvents = edtQueuedEvents;
+    this.conflatedEvents = conflatedEvents;
+    this.methods = Collections.unmodifiableMap(methods);
+  }
+
+  /** Returns the number of events fired, over all methods. */
+  public long getFires() {
+    long total = 0;
+    for (MethodStatistics method : methods.values()) {
+      total += method.getFires();
+    }
+    return total;
+  }
+
+  /** Returns the number of listener calls, over all methods. */
+  public long getListenerInvocations() {
+    long total = 0;
+    for (MethodStatistics method : methods.values()) {
+      total += method.getListenerInvocations();
+    }
+    return total;
+  }
+
+  /** Returns the number of listener calls which threw an exception, over all methods. */
+  public long getFailures() {
+    long total = 0;
+    for (MethodStatistics method : methods.values()) {
+      total += method.getFailures();
+    }
+    return total;
+  }
+}
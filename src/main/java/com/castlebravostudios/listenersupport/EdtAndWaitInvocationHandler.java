@@ -35,7 +35,8 @@ class EdtAndWaitInvocationHandler<T> extends DefaultInvocationHandler<T> {
 
   @Override
   protected void doIteration(Method method, Object[] args) throws Throwable {
-    InvocationHandlerRunnable runnable = new InvocationHandlerRunnable(method, args);
+    // The exception is rethrown to the caller, so it is not reported as well.
+    InvocationHandlerRunnable runnable = new InvocationHandlerRunnable(method, args, false);
     SwingUtilities.invokeAndWait(runnable);
     if (runnable.getException() != null) {
       throw new Throwable(runnable.getException());
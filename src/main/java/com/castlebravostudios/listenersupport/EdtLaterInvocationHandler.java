@@ -20,22 +20,99 @@
  */
 package com.castlebravostudios.listenersupport;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import javax.swing.SwingUtilities;
+import com.google.common.base.Throwables;
 
 /**
  * This is an InvocationHandler that ensures that listener methods are always called asynchronously
- * on the event dispatch thread.
+ * on the event dispatch thread. Events are queued, and at most one task which delivers the queued
+ * events is posted to the event dispatch thread at a time, so that a burst of events does not flood
+ * the AWT event queue. A single task delivers at most {@link DispatchConfig#getEdtBatchSize()}
+ * events and runs for at most {@link DispatchConfig#getEdtTimeBudgetNanos()}, after which it posts
+ * another task for the rest so that other work on the event dispatch thread can run in between.
  */
 class EdtLaterInvocationHandler<T> extends DefaultInvocationHandler<T> {
 
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean drainPosted = new AtomicBoolean();
+
+  private final LongAdder queued = new LongAdder();
+
   public EdtLaterInvocationHandler(Iterable<T> listeners) {
     super(listeners);
   }
 
   @Override
   protected void doIteration(final Method method, final Object[] args) throws Throwable {
-    Runnable edtRunnable = new InvocationHandlerRunnable(method, args);
-    SwingUtilities.invokeLater(edtRunnable);
+    executeEvent(this::enqueue, new InvocationHandlerRunnable(method, args));
+  }
+
+  @Override
+  protected void runOnCaller(Runnable delivery) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      delivery.run();
+      return;
+    }
+    try {
+      SwingUtilities.invokeAndWait(delivery);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (InvocationTargetException e) {
+      // The delivery reports listener exceptions itself, so this came from the error handler.
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @Override
+  protected boolean isDeliveryThread() {
+    return SwingUtilities.isEventDispatchThread();
+  }
+
+  @Override
+  int getQueuedEventCount() {
+    return queued.intValue();
+  }
+
+  private void enqueue(Runnable event) {
+    queue.add(event);
+    queued.increment();
+    if (!drainPosted.get() && drainPosted.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(this::drain);
+    }
+  }
+
+  private void drain() {
+    DispatchConfig config = getConfig();
+    int batchSize = config.getEdtBatchSize();
+    long timeBudget = config.getEdtTimeBudgetNanos();
+    long start = System.nanoTime();
+    int delivered = 0;
+    while (true) {
+      // At least one event is delivered per task, however small the budget.
+      if (delivered > 0
+          && (delivered >= batchSize || System.nanoTime() - start >= timeBudget)) {
+        SwingUtilities.invokeLater(this::drain);
+        return;
+      }
+      Runnable event = queue.poll();
+      if (event == null) {
+        drainPosted.set(false);
+        // An event queued after the poll may have seen the flag still set, so check again.
+        if (queue.isEmpty() || !drainPosted.compareAndSet(false, true)) {
+          return;
+        }
+        continue;
+      }
+      queued.decrement();
+      event.run();
+      delivered++;
+    }
   }
 }
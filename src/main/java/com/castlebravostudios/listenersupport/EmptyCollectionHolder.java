@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/** An immutable collection holder with no listeners. */
+final class EmptyCollectionHolder<T> implements SnapshotCollectionHolder<T> {
+  private static final Object[] EMPTY = new Object[0];
+
+  @Override
+  public void registerListener(T listener) {
+    throw new UnsupportedOperationException(
+        "Can't insert elements into an empty collection holder. ");
+  }
+
+  @Override
+  public void unregisterListener(T listener) {
+    // Nothing is registered, so there is nothing to remove.
+  }
+
+  @Override
+  public Object[] snapshot() {
+    return EMPTY;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return Collections.emptyIterator();
+  }
+
+  @Override
+  public int size() {
+    return 0;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of events a DispatchConfig's asynchronous fire methods have handed off but not
+ * delivered yet, and applies the configured {@link OverflowPolicy} when the bound is reached. While
+ * the capacity is unbounded, events are handed to their executor directly and are not counted.
+ */
+final class EventGate {
+  private static final int PENDING = 0;
+  private static final int STARTED = 1;
+  private static final int DROPPED = 2;
+
+  /** Set while the current thread is delivering an event handed off through any gate. */
+  private static final ThreadLocal<Boolean> DELIVERING = new ThreadLocal<>();
+
+  private final DispatchConfig config;
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  /** Events which may be dropped by {@link OverflowPolicy#DROP_OLDEST}, oldest first. */
+  private final Queue<GatedEvent> droppable = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger droppableSize = new AtomicInteger();
+
+  private final Object lock = new Object();
+
+  /** The number of threads waiting for room. Only changed while holding lock. */
+  private volatile int waiters;
+
+  EventGate(DispatchConfig config) {
+    this.config = config;
+  }
+
+  int getPendingCount() {
+    return pending.get();
+  }
+
+  long getRejectedCount() {
+    return rejected.get();
+  }
+
+  /**
+   * Hands the given delivery to the executor, unless the capacity has been reached and the policy
+   * says otherwise. The handler's runOnCaller method delivers the event for {@link
+   * OverflowPolicy#CALLER_RUNS}, and for {@link OverflowPolicy#BLOCK} when the firing thread is
+   * one which delivers events, as it could otherwise wait for itself.
+   */
+  void execute(Executor executor, Runnable delivery, DefaultInvocationHandler<?> handler) {
+    int capacity = config.getAsyncQueueCapacity();
+    if (capacity == Integer.MAX_VALUE) {
+      executor.execute(delivery);
+      return;
+    }
+    OverflowPolicy policy = config.getOverflowPolicy();
+    if (!tryAcquire(capacity)) {
+      switch (policy) {
+        case BLOCK:
+          if (DELIVERING.get() != null || handler.isDeliveryThread()) {
+            rejected.incrementAndGet();
+            handler.runOnCaller(delivery);
+            return;
+          }
+          acquire();
+          break;
+        case DROP_NEWEST:
+          rejected.incrementAndGet();
+          return;
+        case DROP_OLDEST:
+          rejected.incrementAndGet();
+          if (!dropOldest()) {
+            return;
+          }
+          break;
+        case CALLER_RUNS:
+        default:
+          rejected.incrementAndGet();
+          handler.runOnCaller(delivery);
+          return;
+      }
+    }
+    GatedEvent event = new GatedEvent(delivery);
+    if (policy == OverflowPolicy.DROP_OLDEST) {
+      track(event, capacity);
+    }
+    try {
+      executor.execute(event);
+    } catch (RuntimeException e) {
+      if (event.state.compareAndSet(PENDING, DROPPED)) {
+        release();
+      }
+      throw e;
+    }
+  }
+
+  private boolean tryAcquire(int capacity) {
+    while (true) {
+      int current = pending.get();
+      if (current >= capacity) {
+        return false;
+      }
+      if (pending.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void acquire() {
+    synchronized (lock) {
+      waiters++;
+      try {
+        while (!tryAcquire(config.getAsyncQueueCapacity())) {
+          lock.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted while waiting to fire an event", e);
+      } finally {
+        waiters--;
+      }
+    }
+  }
+
+  private void release() {
+    pending.decrementAndGet();
+    if (waiters > 0) {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /** Drops the oldest event which has not started, handing its slot to the caller. */
+  private boolean dropOldest() {
+    GatedEvent oldest;
+    while ((oldest = droppable.poll()) != null) {
+      droppableSize.decrementAndGet();
+      if (oldest.state.compareAndSet(PENDING, DROPPED)) {
+        oldest.delivery = null;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void track(GatedEvent event, int capacity) {
+    droppable.add(event);
+    // Events which started are normally removed from the head, but ones that started out of order
+    // are only found by sweeping the whole queue once it grows beyond what can still be pending.
+    if (droppableSize.incrementAndGet() > 2 * capacity) {
+      for (Iterator<GatedEvent> it = droppable.iterator(); it.hasNext(); ) {
+        if (it.next().state.get() != PENDING) {
+          it.remove();
+          droppableSize.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  private final class GatedEvent implements Runnable {
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private volatile Runnable delivery;
+
+    GatedEvent(Runnable delivery) {
+      this.delivery = delivery;
+    }
+
+    @Override
+    public void run() {
+      if (!state.compareAndSet(PENDING, STARTED)) {
+        return;
+      }
+      if (droppable.peek() == this && droppable.remove(this)) {
+        droppableSize.decrementAndGet();
+      }
+      boolean outermost = DELIVERING.get() == null;
+      DELIVERING.set(Boolean.TRUE);
+      try {
+        delivery.run();
+      } finally {
+        if (outermost) {
+          DELIVERING.remove();
+        }
+        delivery = null;
+        release();
+      }
+    }
+  }
+}
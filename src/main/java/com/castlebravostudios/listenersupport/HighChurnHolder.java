@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+
+/**
+ * A collection holder designed for listeners which are registered and unregistered very often.
+ * Listeners are kept in an array with an identity-hashed index of their positions, so registering
+ * and unregistering are O(1). Instead of copying the array on every change, a new snapshot is only
+ * published the next time the listeners are fired, so any number of changes between two events cost
+ * a single copy. Listeners are compared by identity and the order in which they are fired is
+ * unspecified. Clients may not insert a null reference. <br>
+ * This class is thread-safe.
+ */
+class HighChurnHolder<T> implements SnapshotCollectionHolder<T> {
+  private final IndexedArray listeners = new IndexedArray(new IdentityHashMap<>());
+
+  /** The most recently published snapshot, or null if the listeners changed since then. */
+  private volatile Object[] published = new Object[0];
+
+  @Override
+  public synchronized void registerListener(T listener) {
+    Preconditions.checkNotNull(listener);
+    if (listeners.add(listener)) {
+      published = null;
+    }
+  }
+
+  @Override
+  public synchronized void unregisterListener(T listener) {
+    if (listeners.remove(listener) != null) {
+      published = null;
+    }
+  }
+
+  @Override
+  public synchronized void registerAll(Collection<? extends T> added) {
+    for (T listener : added) {
+      registerListener(listener);
+    }
+  }
+
+  @Override
+  public synchronized void unregisterAll(Collection<? extends T> removed) {
+    for (T listener : removed) {
+      unregisterListener(listener);
+    }
+  }
+
+  @Override
+  public synchronized void replaceAll(Collection<? extends T> replacements) {
+    listeners.clear();
+    published = null;
+    registerAll(replacements);
+  }
+
+  @Override
+  public Object[] snapshot() {
+    Object[] snapshot = published;
+    if (snapshot == null) {
+      snapshot = publish();
+    }
+    return snapshot;
+  }
+
+  private synchronized Object[] publish() {
+    if (published == null) {
+      published = listeners.toArray();
+    }
+    return published;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<T> iterator() {
+    return Iterators.forArray((T[]) snapshot());
+  }
+
+  @Override
+  public synchronized int size() {
+    return listeners.size();
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import com.google.common.collect.Iterators;
+
+/**
+ * CollectionHolder which compares listeners by identity instead of with equals(). Like {@link
+ * CopyOnWriteSetHolder}, listeners are held in a copy-on-write array in registration order, but the
+ * position of each listener is also kept in an identity-hashed index, so checking whether a
+ * listener is registered never calls its equals() or hashCode() methods and does not scan the
+ * array. <br>
+ * This class is thread-safe.
+ */
+class IdentityCopyOnWriteHolder<T> implements SnapshotCollectionHolder<T> {
+  private static final Object[] EMPTY = new Object[0];
+
+  private volatile Object[] listeners = EMPTY;
+
+  /** The position of each listener in the array. Guarded by this. */
+  private final Map<Object, Integer> positions = new IdentityHashMap<>();
+
+  @Override
+  public synchronized void registerListener(T listener) {
+    if (positions.containsKey(listener)) {
+      return;
+    }
+    Object[] current = listeners;
+    Object[] updated = new Object[current.length + 1];
+    System.arraycopy(current, 0, updated, 0, current.length);
+    updated[current.length] = listener;
+    positions.put(listener, current.length);
+    listeners = updated;
+  }
+
+  @Override
+  public synchronized void unregisterListener(T listener) {
+    Integer position = positions.remove(listener);
+    if (position == null) {
+      return;
+    }
+    int index = position;
+    Object[] current = listeners;
+    Object[] updated = new Object[current.length - 1];
+    System.arraycopy(current, 0, updated, 0, index);
+    System.arraycopy(current, index + 1, updated, index, updated.length - index);
+    for (int i = index; i < updated.length; i++) {
+      positions.put(updated[i], i);
+    }
+    listeners = updated;
+  }
+
+  @Override
+  public synchronized void registerAll(Collection<? extends T> added) {
+    Object[] current = listeners;
+    Object[] updated = append(current, added);
+    if (updated.length != current.length) {
+      listeners = updated;
+    }
+  }
+
+  @Override
+  public synchronized void unregisterAll(Collection<? extends T> removed) {
+    boolean changed = false;
+    for (T listener : removed) {
+      changed |= positions.remove(listener) != null;
+    }
+    if (!changed) {
+      return;
+    }
+    Object[] current = listeners;
+    Object[] updated = new Object[positions.size()];
+    int size = 0;
+    for (Object listener : current) {
+      if (positions.containsKey(listener)) {
+        positions.put(listener, size);
+        updated[size++] = listener;
+      }
+    }
+    listeners = updated;
+  }
+
+  @Override
+  public synchronized void replaceAll(Collection<? extends T> replacements) {
+    positions.clear();
+    listeners = append(EMPTY, replacements);
+  }
+
+  /** Returns the array with the listeners not yet in the index appended, and indexes them. */
+  private Object[] append(Object[] current, Collection<? extends T> added) {
+    Object[] updated = Arrays.copyOf(current, current.length + added.size());
+    int size = current.length;
+    for (T listener : added) {
+      if (!positions.containsKey(listener)) {
+        positions.put(listener, size);
+        updated[size++] = listener;
+      }
+    }
+    return size == updated.length ? updated : Arrays.copyOf(updated, size);
+  }
+
+  @Override
+  public Object[] snapshot() {
+    return listeners;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<T> iterator() {
+    return Iterators.forArray((T[]) listeners);
+  }
+
+  @Override
+  public int size() {
+    return listeners.length;
+  }
+}
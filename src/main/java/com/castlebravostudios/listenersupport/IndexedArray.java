@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An unordered array of distinct elements with a hashed index of their positions, so that elements
+ * can be added, found and removed in constant time. Removing an element moves the last element into
+ * its place. The equality of elements is defined by the map used as the index. <br>
+ * This class is not thread-safe.
+ */
+final class IndexedArray {
+  private final Map<Object, Integer> positions;
+
+  private Object[] elements = new Object[16];
+
+  private int size;
+
+  IndexedArray(Map<Object, Integer> positions) {
+    this.positions = positions;
+  }
+
+  /** Add the element, returning false if an equal element is already present. */
+  boolean add(Object element) {
+    if (positions.containsKey(element)) {
+      return false;
+    }
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    positions.put(element, size);
+    elements[size++] = element;
+    return true;
+  }
+
+  /** Remove the element equal to the given one, returning the removed element or null. */
+  Object remove(Object element) {
+    Integer position = positions.remove(element);
+    if (position == null) {
+      return null;
+    }
+    Object removed = elements[position];
+    int last = --size;
+    if (position != last) {
+      Object moved = elements[last];
+      elements[position] = moved;
+      positions.put(moved, position);
+    }
+    elements[last] = null;
+    return removed;
+  }
+
+  /** Returns whether an element equal to the given one is present. */
+  boolean contains(Object element) {
+    return positions.containsKey(element);
+  }
+
+  /** Remove every element. */
+  void clear() {
+    positions.clear();
+    Arrays.fill(elements, 0, size, null);
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  Object[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import com.google.common.collect.MapMaker;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A ListenerSupport which is partitioned by key. Listeners register under one or more keys, and
+ * events can be fired to the listeners registered under a single key without visiting any other
+ * listener. Each key has its own ListenerSupport, found through a concurrent index, so all of the
+ * fire methods are available per key.
+ *
+ * <p>Example Usage:<br>
+ * <code>
+ * KeyedListenerSupport&lt;Region, MyListener&gt; support =
+ * KeyedListenerSupport.create(MyListener.class);<br>
+ * support.registerListener(region, listener);<br>
+ * support.fire(region).myListenerMethod();<br>
+ * support.forKey(region).fireOnEdtLater().myListenerMethod();<br>
+ * </code> <br>
+ * A key is removed once its last listener is unregistered, or, for weakly-referenced listeners,
+ * the next time the key is looked up after its last listener has been collected. This class is
+ * thread-safe.
+ */
+public final class KeyedListenerSupport<K, T> {
+  @Getter private final Class<T> listenerClass;
+
+  private final Supplier<CollectionHolder<T>> holderFactory;
+
+  /** Whether the holders made by holderFactory are SnapshotCollectionHolders. */
+  private final boolean snapshotHolders;
+
+  private final ConcurrentMap<K, Partition<T>> partitions = new ConcurrentHashMap<>();
+
+  /**
+   * The ListenerSupport of each key, for as long as it or one of its proxies is reachable, so that
+   * a key which is removed and registered again keeps the same ListenerSupport.
+   */
+  private final ConcurrentMap<K, ListenerSupport<T>> supports =
+      new MapMaker().weakValues().makeMap();
+
+  /** The settings shared by the ListenerSupports of all keys. */
+  @Getter private final DispatchConfig config = new DispatchConfig(DispatchConfig.global());
+
+  private final CollectionHolder<T> empty = new EmptyCollectionHolder<>();
+
+  private KeyedListenerSupport(
+      Class<T> listenerClass,
+      Supplier<CollectionHolder<T>> holderFactory,
+      boolean snapshotHolders) {
+    this.listenerClass = listenerClass;
+    this.holderFactory = holderFactory;
+    this.snapshotHolders = snapshotHolders;
+  }
+
+  /** Register the listener under the given key. */
+  public void registerListener(K key, T listener) {
+    partitions.compute(
+        key,
+        (k, partition) -> {
+          if (partition == null) {
+            partition = newPartition(k);
+          }
+          partition.holder.registerListener(listener);
+          return partition;
+        });
+  }
+
+  /** Register every listener in the collection under the given key. */
+  public void registerAll(K key, Collection<? extends T> listeners) {
+    partitions.compute(
+        key,
+        (k, partition) -> {
+          if (partition == null) {
+            partition = newPartition(k);
+          }
+          partition.holder.registerAll(listeners);
+          return partition.holder.isEmpty() ? null : partition;
+        });
+  }
+
+  /** Register the listener under each of the given keys. */
+  public void registerListener(Iterable<? extends K> keys, T listener) {
+    for (K key : keys) {
+      registerListener(key, listener);
+    }
+  }
+
+  /** Unregister the listener from the given key. */
+  public void unregisterListener(K key, T listener) {
+    partitions.computeIfPresent(
+        key,
+        (k, partition) -> {
+          partition.holder.unregisterListener(listener);
+          partition.support.listenersUnregistered(Collections.singleton(listener));
+          return partition.holder.isEmpty() ? null : partition;
+        });
+  }
+
+  /** Unregister the listener from every key it is registered under. */
+  public void unregisterListener(T listener) {
+    for (K key : partitions.keySet()) {
+      unregisterListener(key, listener);
+    }
+  }
+
+  /**
+   * Returns the ListenerSupport holding the listeners registered under the given key. The returned
+   * ListenerSupport does not accept registrations; use {@link #registerListener(Object, Object)}
+   * to add listeners to a key. It keeps following the key, so it and its proxies may be kept and
+   * reused even while the key has no listeners. Keys whose weakly-referenced listeners have all
+   * been collected are removed here.
+   */
+  public ListenerSupport<T> forKey(K key) {
+    Partition<T> partition = partitions.get(key);
+    if (partition == null) {
+      return getSupport(key);
+    }
+    if (partition.holder.isEmpty()) {
+      partitions.computeIfPresent(key, (k, p) -> p.holder.isEmpty() ? null : p);
+    }
+    return partition.support;
+  }
+
+  /**
+   * Returns a proxy listener that will forward all method calls to the listeners registered under
+   * the given key. This is equivalent to <code>forKey(key).fire()</code>.
+   */
+  public T fire(K key) {
+    return forKey(key).fire();
+  }
+
+  /**
+   * Returns the keys which currently have listeners registered under them. Keys whose
+   * weakly-referenced listeners have all been collected are removed first.
+   */
+  public Set<K> keys() {
+    for (K key : partitions.keySet()) {
+      partitions.computeIfPresent(key, (k, p) -> p.holder.isEmpty() ? null : p);
+    }
+    return Collections.unmodifiableSet(partitions.keySet());
+  }
+
+  /** Returns the number of listeners registered under the given key. */
+  public int size(K key) {
+    return forKey(key).size();
+  }
+
+  private Partition<T> newPartition(K key) {
+    return new Partition<>(holderFactory.get(), getSupport(key));
+  }
+
+  private ListenerSupport<T> getSupport(K key) {
+    ListenerSupport<T> support = supports.get(key);
+    if (support == null) {
+      KeyHolder holder = snapshotHolders ? new SnapshotKeyHolder(key) : new KeyHolder(key);
+      ListenerSupport<T> created = new ListenerSupport<>(listenerClass, holder, config);
+      holder.support = created;
+      support = supports.putIfAbsent(key, created);
+      if (support == null) {
+        support = created;
+      }
+    }
+    return support;
+  }
+
+  /** The listeners registered under one key, and the ListenerSupport firing them. */
+  @RequiredArgsConstructor
+  private static final class Partition<T> {
+    private final CollectionHolder<T> holder;
+    private final ListenerSupport<T> support;
+  }
+
+  /**
+   * The read-only collection holder of the ListenerSupport of one key. It looks up the listeners
+   * of the key every time it is used, so it follows the key when it is removed and registered
+   * again.
+   */
+  private class KeyHolder implements CollectionHolder<T> {
+    private final K key;
+
+    /** The ListenerSupport using this holder, kept alive for as long as its proxies are. */
+    private ListenerSupport<T> support;
+
+    KeyHolder(K key) {
+      this.key = key;
+    }
+
+    CollectionHolder<T> current() {
+      Partition<T> partition = partitions.get(key);
+      return partition != null ? partition.holder : empty;
+    }
+
+    @Override
+    public void registerListener(T listener) {
+      throw new UnsupportedOperationException(
+          "Register listeners through the KeyedListenerSupport. ");
+    }
+
+    @Override
+    public void unregisterListener(T listener) {
+      throw new UnsupportedOperationException(
+          "Unregister listeners through the KeyedListenerSupport. ");
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return current().iterator();
+    }
+
+    @Override
+    public int size() {
+      return current().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return current().isEmpty();
+    }
+  }
+
+  private final class SnapshotKeyHolder extends KeyHolder implements SnapshotCollectionHolder<T> {
+    SnapshotKeyHolder(K key) {
+      super(key);
+    }
+
+    @Override
+    public Object[] snapshot() {
+      return ((SnapshotCollectionHolder<T>) current()).snapshot();
+    }
+  }
+
+  /**
+   * Returns a KeyedListenerSupport whose keys are backed by copy-on-write arrays of listeners.
+   * Listeners are strongly-referenced and must be unregistered manually.
+   */
+  public static <K, T> KeyedListenerSupport<K, T> create(Class<T> listenerClass) {
+    return new KeyedListenerSupport<>(listenerClass, CopyOnWriteSetHolder::new, true);
+  }
+
+  /**
+   * Returns a KeyedListenerSupport whose keys hold WeakReferences to listeners. Listeners will be
+   * removed automatically as they become weakly reachable.
+   */
+  public static <K, T> KeyedListenerSupport<K, T> createWeak(Class<T> listenerClass) {
+    return new KeyedListenerSupport<>(listenerClass, WeakCollectionHolder::new, false);
+  }
+}
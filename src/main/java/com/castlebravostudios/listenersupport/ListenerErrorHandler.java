@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles exceptions thrown by listeners during fire methods which do not propagate them to the
+ * firing code, such as the asynchronous ones. The handler is set through {@link
+ * DispatchConfig#setErrorHandler(ListenerErrorHandler)}, and is called on the thread which
+ * delivered the event. Implementations must be thread-safe.
+ *
+ * <p>A handler should not throw. If it does, its exception is passed to the uncaught exception
+ * handler of the delivering thread, with the listener's exception added as suppressed, and the
+ * fire method carries on delivering events.
+ */
+public interface ListenerErrorHandler {
+
+  /**
+   * Called after a listener threw an exception. listener is null if the fire method does not know
+   * which listener failed, and method is null if the event is not a single listener method.
+   */
+  void listenerFailed(Object listener, Method method, Throwable error);
+
+  /** Returns a handler which logs every failure to java.util.logging at level WARNING. */
+  static ListenerErrorHandler logging() {
+    return ErrorHandlers.LOGGING;
+  }
+
+  /**
+   * Returns a handler which hands every failure to the uncaught exception handler of the thread
+   * which delivered the event, which is where the exception would end up if it were rethrown. The
+   * exception is not actually rethrown, so the fire method carries on delivering other events.
+   */
+  static ListenerErrorHandler toUncaughtExceptionHandler() {
+    return ErrorHandlers.UNCAUGHT;
+  }
+
+  /**
+   * Returns a handler which keeps up to the given number of failures, to be retrieved with {@link
+   * CollectingErrorHandler#drain()}. Failures beyond that are counted but dropped.
+   */
+  static CollectingErrorHandler collecting(int capacity) {
+    return new CollectingErrorHandler(capacity);
+  }
+
+  /**
+   * Returns a handler which passes each distinct kind of failure to the delegate at most once per
+   * interval, and only counts the repeats. Failures are the same kind if they have the same
+   * exception class and were thrown by the same listener class and method.
+   */
+  static RateLimitedErrorHandler rateLimited(
+      ListenerErrorHandler delegate, long interval, TimeUnit unit) {
+    return new RateLimitedErrorHandler(delegate, unit.toNanos(interval));
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown, or used to complete a future exceptionally, when one or more listeners threw an exception
+ * during an event which delivers every event regardless of failures. The first failure is the
+ * cause; all failures, including the first, are available from {@link #getFailures()} and as
+ * suppressed exceptions.
+ */
+public class ListenerFailureException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final List<Throwable> failures;
+
+  public ListenerFailureException(List<? extends Throwable> failures) {
+    super(failures.size() + " listener(s) failed", failures.isEmpty() ? null : failures.get(0));
+    this.failures = Collections.unmodifiableList(new ArrayList<Throwable>(failures));
+    for (Throwable failure : failures) {
+      addSuppressed(failure);
+    }
+  }
+
+  /** Returns the exceptions thrown by the listeners, in no particular order. */
+  public List<Throwable> getFailures() {
+    return failures;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Times listener calls made through a DispatchConfig and quarantines listeners which repeatedly
+ * exceed the latency budget. Listeners are only tracked once they have exceeded the budget, and
+ * only weakly, so a monitor does not keep listeners alive.
+ */
+final class ListenerMonitor {
+  private final DispatchConfig config;
+
+  private final ConcurrentMap<Object, AtomicInteger> violations =
+      new MapMaker().weakKeys().makeMap();
+
+  private final Set<Object> quarantined =
+      Collections.newSetFromMap(new MapMaker().weakKeys().<Object, Boolean>makeMap());
+
+  ListenerMonitor(DispatchConfig config) {
+    this.config = config;
+  }
+
+  Set<Object> getQuarantined() {
+    return Collections.unmodifiableSet(quarantined);
+  }
+
+  boolean release(Object listener) {
+    violations.remove(listener);
+    return quarantined.remove(listener);
+  }
+
+  /**
+   * Calls the listener and returns its result, or null if the listener is quarantined and its call
+   * was offloaded or suspended. Calls are only offloaded if mayOffload is true; otherwise
+   * quarantined listeners are suspended.
+   */
+  Object invoke(
+      MethodInvoker invoker, Object listener, Method method, Object[] args, boolean mayOffload)
+      throws Throwable {
+    if (!quarantined.isEmpty() && quarantined.contains(listener)) {
+      if (mayOffload && config.getQuarantineAction() == QuarantineAction.OFFLOAD) {
+        config
+            .getQuarantineExecutor()
+            .execute(() -> invokeQuarantined(invoker, listener, method, args));
+      }
+      return null;
+    }
+    long start = System.nanoTime();
+    try {
+      return invoker.invoke(listener, args);
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      if (elapsed > config.getListenerLatencyBudgetNanos()) {
+        recordViolation(listener, method, elapsed);
+      }
+    }
+  }
+
+  private void recordViolation(Object listener, Method method, long elapsed) {
+    AtomicInteger count = violations.get(listener);
+    if (count == null) {
+      AtomicInteger created = new AtomicInteger();
+      count = violations.putIfAbsent(listener, created);
+      if (count == null) {
+        count = created;
+      }
+    }
+    boolean quarantine = count.incrementAndGet() == config.getQuarantineThreshold();
+    if (quarantine) {
+      quarantined.add(listener);
+    }
+    config.getSlowListenerHandler().slowListener(listener, method, elapsed, quarantine);
+  }
+
+  private void invokeQuarantined(
+      MethodInvoker invoker, Object listener, Method method, Object[] args) {
+    try {
+      invoker.invoke(listener, args);
+    } catch (Throwable t) {
+      config.reportListenerFailure(listener, method, t);
+    }
+  }
+}
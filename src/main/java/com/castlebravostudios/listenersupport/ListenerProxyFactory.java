@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+/**
+ * Creates proxy listeners which forward all method calls to an InvocationHandler. By default,
+ * ListenerSupport uses java.lang.reflect.Proxy to do this. Classes generated for interfaces
+ * annotated with {@link GenerateListenerSupport} implement this interface as well; they must be
+ * public and provide a public no-argument constructor.
+ */
+public interface ListenerProxyFactory<T> {
+  /** Return a new proxy listener which forwards all calls to the given handler. */
+  T newProxy(InvocationHandler handler);
+
+  /**
+   * Return a MethodInvoker which calls the given listener method directly, or null if this factory
+   * does not know how to call it.
+   */
+  MethodInvoker getInvoker(Method method);
+}
@@ -20,14 +20,35 @@
  */
 package com.castlebravostudios.listenersupport;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Proxy;
-import java.util.HashMap;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 /**
  * A class to make implementation of the Observer pattern easier. ListenerSupport handles the thread
@@ -38,7 +59,8 @@ import lombok.Getter;
  * <p>Clients should ensure that listeners will not throw exceptions (which is generally good
  * practice anyway). An exception thrown by a listener will, unless otherwise noted, terminate
  * iteration of the listeners. The specific exception handling behavior of each fire method will be
- * noted in the documentation for that method.
+ * noted in the documentation for that method. Exceptions which a fire method does not propagate are
+ * passed to the {@link ListenerErrorHandler} set through {@link #getConfig()}.
  *
  * <p>Example Usage:<br>
  * <code>
@@ -50,45 +72,75 @@ import lombok.Getter;
  * This class is thread-safe if and only if the collection handler is thread safe. The default
  * collection handlers {@link CopyOnWriteSetHolder} and {@link WeakCollectionHolder} are both
  * thread-safe.
+ *
+ * <p>If the listener interface is annotated with {@link GenerateListenerSupport} and the
+ * listener-support annotation processor was run over it, the generated proxies will be used
+ * instead of dynamic proxies.
  */
 public final class ListenerSupport<T> implements Iterable<T> {
-  private static final Map<Class<?>, Class<?>> PROXY_CLASS_CACHE = new HashMap<>();
+  /** The handlers behind the public fire methods, which are built by {@link #prewarm()}. */
+  private static final List<Class<?>> FIRE_MODES =
+      Arrays.<Class<?>>asList(
+          DefaultInvocationHandler.class,
+          EdtLaterInvocationHandler.class,
+          EdtAndWaitInvocationHandler.class,
+          WtLaterInvocationHandler.class,
+          ParallelInvocationHandler.class,
+          RingBufferInvocationHandler.class,
+          ConflatingInvocationHandler.class,
+          EdtConflatingInvocationHandler.class,
+          MailboxInvocationHandler.class);
+
+  private final ConcurrentMap<Class<?>, CachedProxy<T>> proxyCache = new ConcurrentHashMap<>();
+
+  /**
+   * The handlers of this ListenerSupport and its views which track unregistered listeners. They are
+   * held weakly, so views which are no longer used can be collected.
+   */
+  private final Set<DefaultInvocationHandler<?>> unregistrationHandlers;
 
-  private final Map<Class<?>, T> proxyCache = new HashMap<>();
+  /** The proxies returned by {@link #fireReducing(ResultReducer)} for the built-in reducers. */
+  private final ConcurrentMap<ResultReducer<?, ?>, T> reducingProxies = new ConcurrentHashMap<>();
 
   @Getter private final Class<T> listenerClass;
 
-  private final Class<T> proxyClass;
+  private final ListenerProxyFactory<T> proxyFactory;
 
   private final CollectionHolder<T> collection;
 
+  /**
+   * The settings used to dispatch events from this ListenerSupport and the filtered views created
+   * from it. Settings which are not changed here fall back to {@link DispatchConfig#global()}.
+   */
+  @Getter private final DispatchConfig config;
+
   /**
    * Public constructor provided in case clients wish to use their own CollectionHolder. This is not
    * recommended, as the standard holders should suffice for the majority of users.
    */
   public ListenerSupport(Class<T> listenerClass, CollectionHolder<T> holder) {
+    this(listenerClass, holder, new DispatchConfig(DispatchConfig.global()));
+  }
+
+  /** Package-private constructor for ListenerSupports which share a configuration. */
+  ListenerSupport(Class<T> listenerClass, CollectionHolder<T> holder, DispatchConfig config) {
     assert (listenerClass.isInterface()) : "Must use a listener interface.";
     this.listenerClass = listenerClass;
-    this.proxyClass = getProxyClass(listenerClass);
+    this.proxyFactory = ProxyFactories.forListenerClass(listenerClass);
     this.collection = holder;
-  }
-
-  @SuppressWarnings("unchecked")
-  private static <T> Class<T> getProxyClass(Class<T> listenerClass) {
-    if (PROXY_CLASS_CACHE.containsKey(listenerClass)) {
-      return (Class<T>) PROXY_CLASS_CACHE.get(listenerClass);
-    }
-    Class<T> proxyClass =
-        (Class<T>) Proxy.getProxyClass(listenerClass.getClassLoader(), listenerClass);
-    PROXY_CLASS_CACHE.put(listenerClass, proxyClass);
-    return proxyClass;
+    this.config = config;
+    this.unregistrationHandlers =
+        Collections.newSetFromMap(
+            new MapMaker().weakKeys().<DefaultInvocationHandler<?>, Boolean>makeMap());
   }
 
   /** Private constructor to support filtering. */
-  private ListenerSupport(Class<T> listenerClass, Class<T> proxyClass, CollectionHolder<T> holder) {
-    this.listenerClass = listenerClass;
-    this.proxyClass = proxyClass;
+  private ListenerSupport(ListenerSupport<T> base, CollectionHolder<T> holder) {
+    this.listenerClass = base.listenerClass;
+    this.proxyFactory = base.proxyFactory;
     this.collection = holder;
+    this.config = base.config;
+    this.unregistrationHandlers = base.unregistrationHandlers;
   }
 
   public void registerListener(T listener) {
@@ -97,6 +149,49 @@ public final class ListenerSupport<T> implements Iterable<T> {
 
   public void unregisterListener(T listener) {
     collection.unregisterListener(listener);
+    if (!unregistrationHandlers.isEmpty()) {
+      listenersUnregistered(Collections.singleton(listener));
+    }
+  }
+
+  /**
+   * Registers every listener in the given collection. The standard holders apply the whole change
+   * at once, which is much cheaper than registering a large number of listeners one at a time.
+   */
+  public void registerAll(Collection<? extends T> listeners) {
+    collection.registerAll(listeners);
+  }
+
+  /** Unregisters every listener in the given collection, applying the whole change at once. */
+  public void unregisterAll(Collection<? extends T> listeners) {
+    collection.unregisterAll(listeners);
+    if (!unregistrationHandlers.isEmpty()) {
+      listenersUnregistered(listeners);
+    }
+  }
+
+  /**
+   * Replaces the registered listeners with those in the given collection. With the standard
+   * holders, each event is delivered either to the old listeners or to the new ones, never a mix.
+   */
+  public void replaceAll(Collection<? extends T> listeners) {
+    if (unregistrationHandlers.isEmpty()) {
+      collection.replaceAll(listeners);
+      return;
+    }
+    List<T> removed = Lists.newArrayList(collection);
+    collection.replaceAll(listeners);
+    Set<Object> retained = Sets.newIdentityHashSet();
+    retained.addAll(listeners);
+    removed.removeIf(retained::contains);
+    listenersUnregistered(removed);
+  }
+
+  /** Tells the handlers which track unregistrations that the given listeners were unregistered. */
+  void listenersUnregistered(Iterable<?> listeners) {
+    for (DefaultInvocationHandler<?> handler : unregistrationHandlers) {
+      handler.listenersUnregistered(listeners);
+    }
   }
 
   @Override
@@ -114,8 +209,23 @@ public final class ListenerSupport<T> implements Iterable<T> {
    * returned view, but listeners cannot be registered or unregistered with the view.
    */
   public ListenerSupport<T> filter(ListenerFilter<T> filter) {
+    return new ListenerSupport<>(this, new FilteredCollectionHolder<>(collection, filter));
+  }
+
+  /**
+   * Returns a filtered view like {@link #filter(ListenerFilter)}, for filters which always give the
+   * same result for the same listener. The listeners passing the filter are remembered and only
+   * recomputed after listeners are registered or unregistered, so firing to the view only costs as
+   * much as the number of listeners that pass. Views of weak ListenerSupports can not remember
+   * their listeners and evaluate the filter on every event instead.
+   */
+  public ListenerSupport<T> filterStable(ListenerFilter<T> filter) {
+    if (!(collection instanceof SnapshotCollectionHolder)) {
+      return filter(filter);
+    }
     return new ListenerSupport<>(
-        listenerClass, proxyClass, new FilteredCollectionHolder<>(collection, filter));
+        this,
+        new StableFilteredCollectionHolder<>((SnapshotCollectionHolder<T>) collection, filter));
   }
 
   /**
@@ -129,10 +239,161 @@ public final class ListenerSupport<T> implements Iterable<T> {
     return getProxy(DefaultInvocationHandler.class);
   }
 
+  /**
+   * Returns a proxy listener that will forward all method calls to the listeners on the calling
+   * thread, and return the values returned by the listeners combined by the given reducer. Unlike
+   * {@link #fire()}, iteration stops as soon as the reducer has decided the result, or once a
+   * {@link ConsumableEvent} passed to the method has been consumed by a listener. Any exceptions
+   * thrown by listeners will be propagated from this method. For example: <br>
+   * <code>if (support.fireReducing(ResultReducer.anyTrue()).vetoes(change)) { ... }</code>
+   *
+   * <p>The reducer's result must be assignable to the return type of the fired method; use {@link
+   * #fireReducing(Function, ResultReducer)} for reducers such as {@link ResultReducer#collect()}.
+   * A method returning a primitive type throws a NullPointerException if the result is null, as
+   * {@link ResultReducer#firstNonNull()} gives when no listener was called.
+   * The proxies for the reducers returned by the static methods of ResultReducer are cached; for
+   * other reducers, a new proxy is created on every call, so it should be kept and reused.
+   */
+  public T fireReducing(ResultReducer<?, ?> reducer) {
+    if (!Reducers.isBuiltIn(reducer)) {
+      return createReducingProxy(reducer);
+    }
+    T proxy = reducingProxies.get(reducer);
+    if (proxy == null) {
+      proxy = reducingProxies.computeIfAbsent(reducer, this::createReducingProxy);
+    }
+    return proxy;
+  }
+
+  private T createReducingProxy(ResultReducer<?, ?> reducer) {
+    ReducingInvocationHandler<T> handler = new ReducingInvocationHandler<>(collection, reducer);
+    handler.setConfig(config);
+    return getProxy(handler);
+  }
+
+  /**
+   * Calls the given event on the listeners on the calling thread and combines the values they
+   * return with the given reducer, stopping as soon as the reducer has decided the result. Any
+   * exceptions thrown by listeners will be propagated from this method. For example: <br>
+   * <code>List&lt;Issue&gt; issues = support.fireReducing(l -&gt; l.validate(form),
+   * ResultReducer.collect());</code>
+   */
+  public <R, A> A fireReducing(
+      Function<? super T, ? extends R> event, ResultReducer<? super R, A> reducer) {
+    A result = reducer.initial();
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length && !reducer.isDecided(result); i++) {
+        result = reducer.reduce(result, event.apply(cast(listeners[i])));
+      }
+    } else {
+      for (Iterator<T> it = collection.iterator(); it.hasNext() && !reducer.isDecided(result); ) {
+        result = reducer.reduce(result, event.apply(it.next()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Calls the given event on every listener on the calling thread, like {@link #fire()} but
+   * without a proxy: no argument array is allocated and no arguments are boxed. Any exceptions
+   * thrown by listeners will be propagated from this method. For example: <br>
+   * <code>support.fire(MyListener::myListenerMethod);</code>
+   */
+  public void fire(Consumer<? super T> event) {
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        event.accept(cast(listeners[i]));
+      }
+    } else {
+      for (T listener : collection) {
+        event.accept(listener);
+      }
+    }
+  }
+
+  /**
+   * Calls the given event with the given argument on every listener on the calling thread, as in
+   * {@link #fire(Consumer)}. For example: <br>
+   * <code>support.fire(MyListener::myListenerMethod, obj);</code>
+   */
+  public <A> void fire(BiConsumer<? super T, ? super A> event, A argument) {
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        event.accept(cast(listeners[i]), argument);
+      }
+    } else {
+      for (T listener : collection) {
+        event.accept(listener, argument);
+      }
+    }
+  }
+
+  /**
+   * Calls the given event with the given int on every listener on the calling thread, as in {@link
+   * #fire(Consumer)}, without boxing the argument.
+   */
+  public void fireInt(ObjIntConsumer<? super T> event, int argument) {
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        event.accept(cast(listeners[i]), argument);
+      }
+    } else {
+      for (T listener : collection) {
+        event.accept(listener, argument);
+      }
+    }
+  }
+
+  /**
+   * Calls the given event with the given long on every listener on the calling thread, as in {@link
+   * #fire(Consumer)}, without boxing the argument.
+   */
+  public void fireLong(ObjLongConsumer<? super T> event, long argument) {
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        event.accept(cast(listeners[i]), argument);
+      }
+    } else {
+      for (T listener : collection) {
+        event.accept(listener, argument);
+      }
+    }
+  }
+
+  /**
+   * Calls the given event with the given double on every listener on the calling thread, as in
+   * {@link #fire(Consumer)}, without boxing the argument. For example: <br>
+   * <code>support.fireDouble(PriceListener::priceChanged, 101.25);</code>
+   */
+  public void fireDouble(ObjDoubleConsumer<? super T> event, double argument) {
+    if (collection instanceof SnapshotCollectionHolder) {
+      Object[] listeners = ((SnapshotCollectionHolder<?>) collection).snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        event.accept(cast(listeners[i]), argument);
+      }
+    } else {
+      for (T listener : collection) {
+        event.accept(listener, argument);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T cast(Object listener) {
+    return (T) listener;
+  }
+
   /**
    * Returns a proxy listener that will forward all method calls to all listeners. This method fires
-   * events asynchronously on the event dispatch thread. <b>Any exceptions thrown by listeners will
-   * be printed to System.err and then ignored!</b><br>
+   * events asynchronously on the event dispatch thread. Events fired in quick succession are
+   * delivered together by a single task on the event dispatch thread, limited by the batch size and
+   * time budget set through {@link #getConfig()}. <b>Any exceptions thrown by listeners will be
+   * passed to the error handler and then ignored!</b><br>
    * Note that this method, like all of the fire methods, uses reflection-based proxying and is
    * likely unsuitable for high-performance or high-security environments.
    */
@@ -153,8 +414,9 @@ public final class ListenerSupport<T> implements Iterable<T> {
 
   /**
    * Returns a proxy listener that will forward all method calls to all listeners. This method fires
-   * events asynchronously on a worker thread. <b>Any exceptions thrown by listeners will be printed
-   * to System.err and then ignored!</b><br>
+   * events asynchronously on a worker thread. <b>Any exceptions thrown by listeners will be passed
+   * to the error handler and then ignored!</b> The executor which provides the worker threads is
+   * set through {@link #getConfig()}.<br>
    * Note that this method, like all of the fire methods, uses reflection-based proxying and is
    * likely unsuitable for high-performance or high-security environments.
    */
@@ -165,9 +427,10 @@ public final class ListenerSupport<T> implements Iterable<T> {
   /**
    * Returns a proxy listener that will forward all method calls to all listeners. This method fires
    * events asynchronously on several worker threads using the Fork/Join framework. <b>Any
-   * exceptions thrown by listeners will be printed to System.err and then ignored, but will not
-   * prevent other listeners from being executed.</b> This proxy method is best suited for large
-   * numbers of listeners or listeners which are expected to take a long time.<br>
+   * exceptions thrown by listeners will be passed to the error handler and then ignored, but will
+   * not prevent other listeners from being executed.</b> This proxy method is best suited for large
+   * numbers of listeners or listeners which are expected to take a long time. The pool and the size
+   * of the tasks the listeners are split into are set through {@link #getConfig()}.<br>
    * Note that this method, like all of the fire methods, uses reflection-based proxying and is
    * likely unsuitable for high-performance or high-security environments.
    */
@@ -175,6 +438,104 @@ public final class ListenerSupport<T> implements Iterable<T> {
     return getProxy(ParallelInvocationHandler.class);
   }
 
+  /**
+   * Returns a proxy listener that will forward all method calls to all listeners. This method
+   * stores events in a preallocated ring buffer, from which a single worker thread delivers them in
+   * batches, in the order they were fired. Firing is very cheap unless the buffer is full, in which
+   * case the calling thread waits for room; listeners which fire into a full buffer from the worker
+   * thread have their event delivered immediately instead. <b>Any exceptions thrown by listeners
+   * will be passed to the error handler and then ignored!</b> The size of the buffer and how
+   * threads wait are set through {@link #getConfig()}. Each ListenerSupport, including each
+   * filtered view and each key of a KeyedListenerSupport, has its own buffer and worker
+   * thread.<br>
+   * Note that this method, like all of the fire methods, uses reflection-based proxying and is
+   * likely unsuitable for high-performance or high-security environments.
+   */
+  public T fireBuffered() {
+    return getProxy(RingBufferInvocationHandler.class);
+  }
+
+  /**
+   * Returns a proxy listener that will forward all method calls to all listeners. This method fires
+   * events asynchronously on a worker thread, like {@link #fireOnWtLater()}, but an event which has
+   * not been delivered yet is replaced by a newer call of the same method, so listeners only see
+   * the latest state. Use {@link ConflationKey} to only replace events concerning the same thing.
+   * <b>Any exceptions thrown by listeners will be passed to the error handler and then
+   * ignored!</b><br>
+   * Note that this method, like all of the fire methods, uses reflection-based proxying and is
+   * likely unsuitable for high-performance or high-security environments.
+   */
+  public T fireConflated() {
+    return getProxy(ConflatingInvocationHandler.class);
+  }
+
+  /**
+   * Returns a proxy listener that will forward all method calls to all listeners. This method fires
+   * events asynchronously on the event dispatch thread and replaces undelivered events like {@link
+   * #fireConflated()}. <b>Any exceptions thrown by listeners will be passed to the error handler
+   * and then ignored!</b><br>
+   * Note that this method, like all of the fire methods, uses reflection-based proxying and is
+   * likely unsuitable for high-performance or high-security environments.
+   */
+  public T fireConflatedOnEdt() {
+    return getProxy(EdtConflatingInvocationHandler.class);
+  }
+
+  /**
+   * Returns a proxy listener that will forward all method calls to all listeners. This method fires
+   * events asynchronously on worker threads, with a separate queue of events for every listener.
+   * Each listener receives its events in the order they were fired, one at a time, while a slow
+   * listener does not hold up the others. <b>Any exceptions thrown by listeners will be passed to
+   * the error handler and then ignored!</b> The executor which provides the worker threads is set
+   * through {@link #getConfig()}.<br>
+   * Note that this method, like all of the fire methods, uses reflection-based proxying and is
+   * likely unsuitable for high-performance or high-security environments.
+   */
+  public T fireToMailboxes() {
+    return getProxy(MailboxInvocationHandler.class);
+  }
+
+  /**
+   * Calls the given event on every listener asynchronously, on the executor given by {@link
+   * DispatchConfig#getAsyncExecutor()}. Listeners are called one after another in a single task.
+   * Every listener is called even if others throw; the returned future completes once all of them
+   * have been called, or completes exceptionally with a {@link ListenerFailureException} holding
+   * the exceptions they threw. For example: <br>
+   * <code>support.fireAsync(listener -&gt; listener.myListenerMethod(obj)).join();</code>
+   *
+   * <p>Unlike the proxy-based fire methods, events fired this way bypass most of the {@link
+   * DispatchConfig}: they do not count against the async queue capacity or its overflow policy,
+   * are not recorded in the metrics, are not timed against the listener latency budget, and are
+   * delivered even to listeners which do not override a {@link NoOpDefault} method. Failures are
+   * only reported through the returned future, not to the error handler.
+   */
+  public CompletableFuture<Void> fireAsync(Consumer<? super T> event) {
+    return fireAsync(config.getAsyncExecutor(), event);
+  }
+
+  /**
+   * Calls the given event on every listener asynchronously on the given executor, as in {@link
+   * #fireAsync(Consumer)}. Passing <code>SwingUtilities::invokeLater</code> delivers the event on
+   * the event dispatch thread.
+   */
+  public CompletableFuture<Void> fireAsync(Executor executor, Consumer<? super T> event) {
+    Object[] listeners = snapshotListeners();
+    return AsyncFire.start(listeners, event, executor, Math.max(1, listeners.length));
+  }
+
+  /**
+   * Calls the given event on every listener on several worker threads, split up as in {@link
+   * #fireInParallel()}. Every listener is called even if others throw; the returned future
+   * completes once all of them have been called, or completes exceptionally with a {@link
+   * ListenerFailureException} holding the exceptions they threw. Like {@link
+   * #fireAsync(Consumer)}, this bypasses the overflow policy, metrics, listener monitoring, error
+   * handler and {@link NoOpDefault} skipping.
+   */
+  public CompletableFuture<Void> fireInParallelAsync(Consumer<? super T> event) {
+    return AsyncFire.start(
+        snapshotListeners(), event, config.getParallelPool(), config.getParallelThreshold());
+  }
+
   /**
    * Returns a proxy listener that will forward all method calls to all listeners using the given
    * proxy. The exception-handling and thread-safety of the given handler are entirely dependent on
@@ -187,7 +548,96 @@ public final class ListenerSupport<T> implements Iterable<T> {
     return getProxy(cls);
   }
 
+  /**
+   * Returns a snapshot of the statistics of this ListenerSupport. The listener count, the
+   * back-pressure counters and the queue depths are always available; the per-method statistics
+   * are only recorded while {@link DispatchConfig#isMetricsEnabled()} is set, and are shared with
+   * the filtered views of this ListenerSupport. The queue depths only cover events fired through
+   * this ListenerSupport itself, not through its views.
+   */
+  public DispatchStatistics getStatistics() {
+    return new DispatchStatistics(
+        size(),
+        config.getPendingEventCount(),
+        config.getRejectedEventCount(),
+        getQueuedEventCount(RingBufferInvocationHandler.class),
+        getQueuedEventCount(MailboxInvocationHandler.class),
+        getQueuedEventCount(EdtLaterInvocationHandler.class),
+        getQueuedEventCount(ConflatingInvocationHandler.class)
+            + getQueuedEventCount(EdtConflatingInvocationHandler.class),
+        config.getMethodStatistics());
+  }
+
+  private int getQueuedEventCount(Class<?> handlerClass) {
+    CachedProxy<T> cached = proxyCache.get(handlerClass);
+    return cached != null ? cached.handler.getQueuedEventCount() : 0;
+  }
+
+  /**
+   * Registers a {@link ListenerSupportMXBean} for this ListenerSupport with the platform MBean
+   * server, under the name <code>com.castlebravostudios.listenersupport:type=ListenerSupport,
+   * name=</code><i>name</i>, and returns that name. The MBean server keeps this ListenerSupport
+   * alive until the MBean is unregistered.
+   *
+   * @throws IllegalStateException if the MBean could not be registered, for example because the
+   *     name is already taken.
+   */
+  public ObjectName registerMBean(String name) {
+    try {
+      ObjectName objectName =
+          new ObjectName(
+              "com.castlebravostudios.listenersupport:type=ListenerSupport,name="
+                  + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(new ListenerSupportMXBeanImpl(this), objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register MBean " + name, e);
+    }
+  }
+
+  /**
+   * Builds the proxies for all of the fire methods and prepares them to call every listener method,
+   * so that the first event fired from a latency-sensitive thread does not have to pay for the
+   * reflective setup. Calling this is optional; proxies are otherwise built the first time each
+   * fire method is used. Filtered views have their own proxies, which must be prewarmed separately.
+   */
+  public void prewarm() {
+    Method[] methods = getListenerMethods();
+    for (Class<?> mode : FIRE_MODES) {
+      getCachedProxy(mode).handler.prepare(methods);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object[] snapshotListeners() {
+    if (collection instanceof SnapshotCollectionHolder) {
+      return ((SnapshotCollectionHolder<T>) collection).snapshot();
+    }
+    return Iterables.toArray(collection, Object.class);
+  }
+
+  private Method[] getListenerMethods() {
+    return Arrays.stream(listenerClass.getMethods())
+        .filter(method -> !Modifier.isStatic(method.getModifiers()))
+        .toArray(Method[]::new);
+  }
+
   private T getProxy(Class<?> clas) {
+    return getCachedProxy(clas).proxy;
+  }
+
+  private CachedProxy<T> getCachedProxy(Class<?> clas) {
+    CachedProxy<T> cached = proxyCache.get(clas);
+    if (cached == null) {
+      // computeIfAbsent guarantees that each proxy is built at most once, even if several threads
+      // fire for the first time concurrently.
+      cached = proxyCache.computeIfAbsent(clas, this::createProxy);
+    }
+    return cached;
+  }
+
+  private CachedProxy<T> createProxy(Class<?> clas) {
 
     assert DefaultInvocationHandler.class.isAssignableFrom(clas);
 
@@ -195,17 +645,15 @@ public final class ListenerSupport<T> implements Iterable<T> {
     Class<? extends DefaultInvocationHandler<T>> cls =
         (Class<? extends DefaultInvocationHandler<T>>) clas;
 
-    if (proxyCache.containsKey(cls)) {
-      return proxyCache.get(cls);
-    }
-
     try {
       Constructor<? extends DefaultInvocationHandler<T>> constructor =
           cls.getConstructor(Iterable.class);
       DefaultInvocationHandler<T> instance = constructor.newInstance(collection);
-      T proxy = getProxy(instance);
-      proxyCache.put(cls, proxy);
-      return proxy;
+      instance.setConfig(config);
+      if (instance.tracksUnregistration()) {
+        unregistrationHandlers.add(instance);
+      }
+      return new CachedProxy<>(instance, getProxy(instance));
     } catch (NoSuchMethodException
         | SecurityException
         | InstantiationException
@@ -217,20 +665,17 @@ public final class ListenerSupport<T> implements Iterable<T> {
   }
 
   private T getProxy(DefaultInvocationHandler<T> handler) {
-    try {
-      return proxyClass.getConstructor(InvocationHandler.class).newInstance(handler);
-    } catch (InstantiationException
-        | IllegalAccessException
-        | IllegalArgumentException
-        | InvocationTargetException
-        | NoSuchMethodException
-        | SecurityException e) {
-      throw new ProxyException(e);
-    }
+    return proxyFactory.newProxy(handler);
+  }
+
+  @RequiredArgsConstructor
+  private static final class CachedProxy<T> {
+    private final DefaultInvocationHandler<T> handler;
+    private final T proxy;
   }
 
   /**
-   * Returns a ListenerSupport backed by a CopyOnWriteArraySet of listeners. Listeners are
+   * Returns a ListenerSupport backed by a copy-on-write array of listeners. Listeners are
    * strongly-referenced and must be unregistered manually. This should be sufficient for most uses.
    * ListenerSupports returned from this method are thread-safe.
    */
@@ -239,8 +684,31 @@ public final class ListenerSupport<T> implements Iterable<T> {
   }
 
   /**
-   * Returns a ListenerSupport backed by a CopyOnWriteArraySet of WeakReferences to listeners.
-   * Listeners will be removed automatically as they become weakly reachable. ListenerSupports
+   * Returns a ListenerSupport backed by a copy-on-write array of listeners, like {@link
+   * #create(Class)}, which compares listeners by identity rather than with equals(). Registering
+   * and unregistering never call the listeners' equals() or hashCode() methods, which suits
+   * listeners with expensive or unusual implementations of them, such as mocks and proxies.
+   * Listeners are strongly-referenced and must be unregistered manually. ListenerSupports returned
+   * from this method are thread-safe.
+   */
+  public static <T> ListenerSupport<T> createIdentity(Class<T> listenerClass) {
+    return new ListenerSupport<>(listenerClass, new IdentityCopyOnWriteHolder<T>());
+  }
+
+  /**
+   * Returns a ListenerSupport for listeners which are registered and unregistered very frequently.
+   * Registering and unregistering take constant time, and changes are published to the fire methods
+   * in batches the next time an event is fired. Listeners are compared by identity, are
+   * strongly-referenced and must be unregistered manually. They are not fired in any particular
+   * order. ListenerSupports returned from this method are thread-safe.
+   */
+  public static <T> ListenerSupport<T> createHighChurn(Class<T> listenerClass) {
+    return new ListenerSupport<>(listenerClass, new HighChurnHolder<T>());
+  }
+
+  /**
+   * Returns a ListenerSupport backed by a set of WeakReferences to listeners. Listeners will be
+   * removed automatically in the background as they become weakly reachable. ListenerSupports
    * returned from this method are thread-safe.
    */
   public static <T> ListenerSupport<T> createWeak(Class<T> listenerClass) {
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+
+/** Publishes the statistics of a ListenerSupport through JMX. */
+@RequiredArgsConstructor
+final class ListenerSupportMXBeanImpl implements ListenerSupportMXBean {
+  private final ListenerSupport<?> support;
+
+  @Override
+  public int getListenerCount() {
+    return support.size();
+  }
+
+  @Override
+  public int getPendingEvents() {
+    return support.getConfig().getPendingEventCount();
+  }
+
+  @Override
+  public long getRejectedEvents() {
+    return support.getConfig().getRejectedEventCount();
+  }
+
+  @Override
+  public int getBufferedEvents() {
+    return support.getStatistics().getBufferedEvents();
+  }
+
+  @Override
+  public int getMailboxEvents() {
+    return support.getStatistics().getMailboxEvents();
+  }
+
+  @Override
+  public int getEdtQueuedEvents() {
+    return support.getStatistics().getEdtQueuedEvents();
+  }
+
+  @Override
+  public int getConflatedEvents() {
+    return support.getStatistics().getConflatedEvents();
+  }
+
+  @Override
+  public long getFires() {
+    return support.getStatistics().getFires();
+  }
+
+  @Override
+  public long getListenerInvocations() {
+    return support.getStatistics().getListenerInvocations();
+  }
+
+  @Override
+  public long getFailures() {
+    return support.getStatistics().getFailures();
+  }
+
+  @Override
+  public Map<String, MethodStatistics> getMethods() {
+    return support.getStatistics().getMethods();
+  }
+
+  @Override
+  public boolean isMetricsEnabled() {
+    return support.getConfig().isMetricsEnabled();
+  }
+
+  @Override
+  public void setMetricsEnabled(boolean enabled) {
+    support.getConfig().setMetricsEnabled(enabled);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Invocation handler that gives every listener its own mailbox of pending events, drained on the
+ * executor given by {@link DispatchConfig#getAsyncExecutor()}. Each listener receives its events
+ * in the order they were fired, one at a time, but a slow listener only delays its own mailbox.
+ * Events count against {@link DispatchConfig#getAsyncQueueCapacity()} until they are delivered,
+ * so a slow listener can not grow its mailbox without bound; note that {@link
+ * OverflowPolicy#CALLER_RUNS} delivers on the firing thread, out of order with the mailbox.
+ *
+ * <p>Mailboxes are created the first time an event is sent to a listener. They are held weakly by
+ * the listener, so they disappear along with listeners which are no longer referenced, and an
+ * empty mailbox costs no more than a map entry. Unregistering a listener through its
+ * ListenerSupport closes its mailbox, and events still queued in it are skipped.
+ */
+class MailboxInvocationHandler<T> extends DefaultInvocationHandler<T> {
+  /** The number of events a mailbox delivers before yielding its thread to other mailboxes. */
+  private static final int BATCH_SIZE = 64;
+
+  private final ConcurrentMap<Object, Mailbox> mailboxes = new MapMaker().weakKeys().makeMap();
+
+  /** The number of events in all mailboxes. */
+  private final LongAdder backlog = new LongAdder();
+
+  public MailboxInvocationHandler(Iterable<T> listeners) {
+    super(listeners);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void doIteration(Method method, Object[] args) throws Throwable {
+    Object[] listeners = snapshotListeners(method);
+    for (int i = 0; i < listeners.length; i++) {
+      T listener = (T) listeners[i];
+      Mailbox mailbox = getMailbox(listener);
+      executeEvent(mailbox, new Delivery(mailbox, listener, method, args));
+    }
+  }
+
+  @Override
+  int getQueuedEventCount() {
+    return backlog.intValue();
+  }
+
+  @Override
+  boolean tracksUnregistration() {
+    return true;
+  }
+
+  @Override
+  void listenersUnregistered(Iterable<?> listeners) {
+    for (Object listener : listeners) {
+      Mailbox mailbox = mailboxes.remove(listener);
+      if (mailbox != null) {
+        mailbox.closed = true;
+      }
+    }
+  }
+
+  private Mailbox getMailbox(Object listener) {
+    Mailbox mailbox = mailboxes.get(listener);
+    if (mailbox == null) {
+      Mailbox created = new Mailbox();
+      mailbox = mailboxes.putIfAbsent(listener, created);
+      if (mailbox == null) {
+        mailbox = created;
+      }
+    }
+    return mailbox;
+  }
+
+  private final class Delivery implements Runnable {
+    private final Mailbox mailbox;
+    private final T listener;
+    private final Method method;
+    private final Object[] args;
+
+    Delivery(Mailbox mailbox, T listener, Method method, Object[] args) {
+      this.mailbox = mailbox;
+      this.listener = listener;
+      this.method = method;
+      this.args = args;
+    }
+
+    @Override
+    public void run() {
+      if (mailbox.closed) {
+        return;
+      }
+      try {
+        invokeMethod(listener, method, args);
+      } catch (Throwable t) {
+        reportError(listener, method, t);
+      }
+    }
+  }
+
+  /**
+   * The pending events of one listener. At most one drain task per mailbox is scheduled at a time,
+   * which is what keeps the listener's events in order.
+   */
+  private final class Mailbox implements Executor, Runnable {
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** Set once the listener has been unregistered. */
+    private volatile boolean closed;
+
+    @Override
+    public void execute(Runnable delivery) {
+      queue.add(delivery);
+      backlog.increment();
+      if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+        schedule();
+      }
+    }
+
+    private void schedule() {
+      try {
+        getConfig().getAsyncExecutor().execute(this);
+      } catch (RuntimeException e) {
+        scheduled.set(false);
+        throw e;
+      }
+    }
+
+    @Override
+    public void run() {
+      for (int delivered = 0; delivered < BATCH_SIZE; delivered++) {
+        Runnable delivery = queue.poll();
+        if (delivery == null) {
+          scheduled.set(false);
+          // An event posted after the poll may have seen the mailbox as still scheduled.
+          if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+            return;
+          }
+          continue;
+        }
+        backlog.decrement();
+        delivery.run();
+      }
+      try {
+        schedule();
+      } catch (RuntimeException e) {
+        // The remaining events are delivered once the next event schedules the mailbox again.
+        reportError(null, null, e);
+      }
+    }
+  }
+}
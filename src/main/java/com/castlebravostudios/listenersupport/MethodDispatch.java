@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+
+/**
+ * The state an invocation handler keeps for each listener method: the MethodInvoker used to call
+ * it, and which listeners should receive it. Methods marked with {@link NoOpDefault} are only sent
+ * to listeners which override them.
+ */
+final class MethodDispatch<T> {
+  /** For each listener class, whether it overrides each no-op default method fired so far. */
+  private static final ClassValue<ConcurrentMap<Method, Boolean>> OVERRIDES =
+      new ClassValue<ConcurrentMap<Method, Boolean>>() {
+        @Override
+        protected ConcurrentMap<Method, Boolean> computeValue(Class<?> listenerClass) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  @Getter private final MethodInvoker invoker;
+
+  /** Filter passed by the listeners which should receive the method, or null if all of them do. */
+  @Getter private final ListenerFilter<T> subscriptionFilter;
+
+  /** The listeners which should receive the method, or null if they can not be snapshotted. */
+  @Getter private final SnapshotCollectionHolder<T> subscribers;
+
+  MethodDispatch(Method method, Iterable<T> listeners) {
+    this.invoker = ProxyFactories.invokerFor(method);
+    this.subscriptionFilter =
+        isNoOpDefault(method) ? listener -> overrides(listener.getClass(), method) : null;
+
+    if (listeners instanceof SnapshotCollectionHolder) {
+      SnapshotCollectionHolder<T> holder = (SnapshotCollectionHolder<T>) listeners;
+      this.subscribers =
+          subscriptionFilter == null
+              ? holder
+              : new StableFilteredCollectionHolder<>(holder, subscriptionFilter);
+    } else {
+      this.subscribers = null;
+    }
+  }
+
+  private static boolean isNoOpDefault(Method method) {
+    return method.isDefault()
+        && (method.isAnnotationPresent(NoOpDefault.class)
+            || method.getDeclaringClass().isAnnotationPresent(NoOpDefault.class));
+  }
+
+  private static boolean overrides(Class<?> listenerClass, Method method) {
+    ConcurrentMap<Method, Boolean> cache = OVERRIDES.get(listenerClass);
+    Boolean result = cache.get(method);
+    if (result == null) {
+      result = computeOverrides(listenerClass, method);
+      cache.putIfAbsent(method, result);
+    }
+    return result;
+  }
+
+  private static boolean computeOverrides(Class<?> listenerClass, Method method) {
+    try {
+      // A class which does not override a default method resolves it to the interface's method.
+      return !listenerClass.getMethod(method.getName(), method.getParameterTypes()).equals(method);
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+}
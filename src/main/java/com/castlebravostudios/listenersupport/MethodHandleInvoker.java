@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * MethodInvoker that calls the listener method through a MethodHandle which is spread over the
+ * argument array. Unlike Method.invoke, this performs no per-call access checks and does not wrap
+ * exceptions thrown by the listener in an InvocationTargetException.
+ */
+final class MethodHandleInvoker implements MethodInvoker {
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  private final MethodHandle handle;
+
+  MethodHandleInvoker(Method method) {
+    this.handle =
+        unreflect(method)
+            .asSpreader(Object[].class, method.getParameterCount())
+            .asType(INVOKER_TYPE);
+  }
+
+  @Override
+  public Object invoke(Object listener, Object[] args) throws Throwable {
+    return handle.invokeExact(listener, args);
+  }
+
+  private static MethodHandle unreflect(Method method) {
+    try {
+      return MethodHandles.publicLookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      // Non-public listener interfaces can still be called once the access check is suppressed.
+      try {
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+      } catch (IllegalAccessException | SecurityException e2) {
+        throw new ProxyException(e2);
+      }
+    }
+  }
+}
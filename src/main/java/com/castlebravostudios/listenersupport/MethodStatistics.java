@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.beans.ConstructorProperties;
+import lombok.Getter;
+
+/**
+ * A snapshot of the statistics recorded for one listener method. The dispatch latency is the time
+ * the fire method took to return: the time taken by all listeners for {@link
+ * ListenerSupport#fire()}, or the time taken to hand the event off for asynchronous fire methods.
+ * Latencies are recorded in power-of-two buckets, so percentiles are accurate to within a factor of
+ * two.
+ */
+@Getter
+public final class MethodStatistics {
+  static final int BUCKETS = 65;
+
+  /** The number of times the method was fired. */
+  private final long fires;
+
+  /** The number of times a listener was called with the method. */
+  private final long listenerInvocations;
+
+  /** The number of listener calls which threw an exception. */
+  private final long failures;
+
+  /** The total dispatch latency of all fires, in nanoseconds. */
+  private final long totalLatencyNanos;
+
+  /**
+   * The number of fires by dispatch latency. Element i counts the fires which took less than 2^i
+   * nanoseconds but at least 2^(i-1).
+   */
+  private final long[] latencyHistogram;
+
+  @ConstructorProperties({
+    "fires", "listenerInvocations", "failures", "totalLatencyNanos", "latencyHistogram"
+  })
+  public MethodStatistics(
+      long fires,
+      long listenerInvocations,
+      long failures,
+      long totalLatencyNanos,
+      long[] latencyHistogram) {
+    this.fires = fires;
+    this.listenerInvocations = listenerInvocations;
+    this.failures = failures;
+    this.totalLatencyNanos = totalLatencyNanos;
+    this.latencyHistogram = latencyHistogram.clone();
+  }
+
+  public long[] getLatencyHistogram() {
+    return latencyHistogram.clone();
+  }
+
+  public long getMeanLatencyNanos() {
+    return fires == 0 ? 0 : totalLatencyNanos / fires;
+  }
+
+  public long getMedianLatencyNanos() {
+    return latencyPercentileNanos(50);
+  }
+
+  public long getP99LatencyNanos() {
+    return latencyPercentileNanos(99);
+  }
+
+  /**
+   * Returns an upper bound for the dispatch latency of the given percentage of fires, in
+   * nanoseconds, or 0 if the method was never fired.
+   */
+  public long latencyPercentileNanos(double percent) {
+    long total = 0;
+    for (long count : latencyHistogram) {
+      total += count;
+    }
+    long rank = (long) Math.ceil(total * percent / 100);
+    long seen = 0;
+    for (int i = 0; i < latencyHistogram.length; i++) {
+      seen += latencyHistogram[i];
+      if (seen >= rank && seen > 0) {
+        return i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+/**
+ * What the asynchronous fire methods do with a new event when the number of events which have been
+ * fired but not yet delivered has reached {@link DispatchConfig#getAsyncQueueCapacity()}. Events
+ * dropped or delivered on the firing thread are counted by {@link
+ * DispatchConfig#getRejectedEventCount()}.
+ */
+public enum OverflowPolicy {
+  /**
+   * Make the firing thread wait until an event has been delivered. Threads which deliver events
+   * themselves, such as the event dispatch thread or a thread running an asynchronous listener,
+   * can not wait for room they may have to make, so their events are handled as in {@link
+   * #CALLER_RUNS}.
+   */
+  BLOCK,
+  /** Drop the new event. */
+  DROP_NEWEST,
+  /**
+   * Drop the oldest event which has not started being delivered, and queue the new one. If every
+   * queued event is already being delivered, the new event is dropped instead.
+   */
+  DROP_OLDEST,
+  /**
+   * Deliver the new event on the firing thread. Fire methods which deliver events on a particular
+   * thread or pool, such as {@link ListenerSupport#fireOnEdtLater()} and {@link
+   * ListenerSupport#fireInParallel()}, wait for it to be delivered there.
+   */
+  CALLER_RUNS;
+}
@@ -21,61 +21,74 @@
 package com.castlebravostudios.listenersupport;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveAction;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Invocation handler that invokes listeners on several worker threads using the Fork/Join
- * framework.
+ * framework. Listeners run on the pool given by {@link DispatchConfig#getParallelPool()}, and the
+ * listener set is split recursively into tasks of at most {@link
+ * DispatchConfig#getParallelThreshold()} listeners each.
  */
 class ParallelInvocationHandler<T> extends DefaultInvocationHandler<T> {
 
-  private final ForkJoinPool pool = new ForkJoinPool();
-
   public ParallelInvocationHandler(Iterable<T> listeners) {
     super(listeners);
   }
 
   @Override
   protected void doIteration(Method method, Object[] args) throws Throwable {
-    pool.submit(new InvocationAction(getListeners(), method, args));
+    DispatchConfig config = getConfig();
+    Object[] listeners = snapshotListeners(method);
+    InvocationAction action =
+        new InvocationAction(
+            listeners,
+            0,
+            listeners.length,
+            config.getParallelThreshold(),
+            prepareCall(method),
+            args);
+    executeEvent(config.getParallelPool(), action::invoke);
   }
 
-  @RequiredArgsConstructor
-  private class InvocationAction extends RecursiveAction {
-
-    private final Iterable<T> listeners;
-    private final Method method;
-    private final Object[] args;
+  @Override
+  protected boolean offloadsQuarantined() {
+    return true;
+  }
 
-    @Override
-    protected void compute() {
-      List<ForkJoinTask<?>> tasks = new ArrayList<>();
-      for (T listener : listeners) {
-        tasks.add(new SingleInvocationTask(listener, method, args));
-      }
-      invokeAll(tasks);
-    }
+  /** Delivers the event on the configured pool, so that its subtasks are forked there. */
+  @Override
+  protected void runOnCaller(Runnable delivery) {
+    getConfig().getParallelPool().invoke(ForkJoinTask.adapt(delivery));
   }
 
   @RequiredArgsConstructor
-  private class SingleInvocationTask extends RecursiveAction {
+  private class InvocationAction extends RecursiveAction {
 
-    private final T listener;
-    private final Method method;
+    private final Object[] listeners;
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final ListenerCall call;
     private final Object[] args;
 
     @Override
-    public void compute() {
-      try {
-        invokeMethod(listener, method, args);
-      } catch (Throwable t) {
-        t.printStackTrace();
-        completeExceptionally(t);
+    @SuppressWarnings("unchecked")
+    protected void compute() {
+      if (to - from <= threshold) {
+        for (int i = from; i < to; i++) {
+          try {
+            invokeListener(call, (T) listeners[i], args);
+          } catch (Throwable t) {
+            reportError(listeners[i], call.getMethod(), t);
+          }
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+            new InvocationAction(listeners, from, middle, threshold, call, args),
+            new InvocationAction(listeners, middle, to, threshold, call, args));
       }
     }
   }
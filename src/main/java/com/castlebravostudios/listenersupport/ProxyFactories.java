@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Looks up the ListenerProxyFactory for a listener interface. A class generated by the
+ * listener-support annotation processor is used if one exists, otherwise proxies are created
+ * reflectively. Factories are cached per interface in a ClassValue, so lookups never lock and the
+ * cache does not keep the listener's class loader alive.
+ */
+final class ProxyFactories {
+  private static final String GENERATED_SUFFIX = "ListenerSupport";
+
+  private static final ClassValue<ListenerProxyFactory<?>> FACTORY_CACHE =
+      new ClassValue<ListenerProxyFactory<?>>() {
+        @Override
+        protected ListenerProxyFactory<?> computeValue(Class<?> listenerClass) {
+          return createFactory(listenerClass);
+        }
+      };
+
+  private ProxyFactories() {}
+
+  @SuppressWarnings("unchecked")
+  static <T> ListenerProxyFactory<T> forListenerClass(Class<T> listenerClass) {
+    return (ListenerProxyFactory<T>) FACTORY_CACHE.get(listenerClass);
+  }
+
+  /** Return the MethodInvoker used to call the given listener method. */
+  static MethodInvoker invokerFor(Method method) {
+    MethodInvoker invoker = forListenerClass(method.getDeclaringClass()).getInvoker(method);
+    return invoker != null ? invoker : new MethodHandleInvoker(method);
+  }
+
+  private static <T> ListenerProxyFactory<T> createFactory(Class<T> listenerClass) {
+    ListenerProxyFactory<T> generated = findGeneratedFactory(listenerClass);
+    return generated != null ? generated : new ReflectiveProxyFactory<>(listenerClass);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> ListenerProxyFactory<T> findGeneratedFactory(Class<T> listenerClass) {
+    Class<?> generatedClass;
+    try {
+      generatedClass =
+          Class.forName(generatedClassName(listenerClass), true, listenerClass.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+    if (!ListenerProxyFactory.class.isAssignableFrom(generatedClass)) {
+      return null;
+    }
+    try {
+      return (ListenerProxyFactory<T>) generatedClass.getConstructor().newInstance();
+    } catch (InstantiationException
+        | IllegalAccessException
+        | InvocationTargetException
+        | NoSuchMethodException
+        | SecurityException e) {
+      throw new ProxyException(e);
+    }
+  }
+
+  /**
+   * Return the name of the class generated for the given interface. This must match the naming
+   * scheme used by the annotation processor.
+   */
+  static String generatedClassName(Class<?> listenerClass) {
+    String name = listenerClass.getName();
+    int packageEnd = name.lastIndexOf('.');
+    String packagePrefix = name.substring(0, packageEnd + 1);
+    String simpleName = name.substring(packageEnd + 1).replace('$', '_');
+    return packagePrefix + simpleName + GENERATED_SUFFIX;
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+/**
+ * What happens to events for a listener which has exceeded its latency budget {@link
+ * DispatchConfig#getQuarantineThreshold()} times.
+ */
+public enum QuarantineAction {
+  /**
+   * Deliver the listener's events on {@link DispatchConfig#getQuarantineExecutor()} instead. This
+   * only applies to fire methods which deliver events on worker threads: {@link
+   * ListenerSupport#fireOnWtLater()}, {@link ListenerSupport#fireInParallel()}, {@link
+   * ListenerSupport#fireBuffered()} and {@link ListenerSupport#fireConflated()}. The other fire
+   * methods deliver on the event dispatch thread, per listener in order, synchronously or for a
+   * result, so they suspend the listener instead.
+   */
+  OFFLOAD,
+  /** Stop delivering events to the listener until it is released from quarantine. */
+  SUSPEND;
+}
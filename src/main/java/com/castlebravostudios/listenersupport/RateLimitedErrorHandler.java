@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ListenerErrorHandler which passes each distinct kind of failure to another handler at most once
+ * per interval, so that a listener failing on every event does not flood the log or make every
+ * delivering thread contend on it. Repeats are only counted. This class is thread-safe.
+ */
+public final class RateLimitedErrorHandler implements ListenerErrorHandler {
+  private final ListenerErrorHandler delegate;
+
+  private final long intervalNanos;
+
+  private final ConcurrentMap<List<Object>, AtomicLong> lastReported = new ConcurrentHashMap<>();
+
+  private final AtomicLong suppressed = new AtomicLong();
+
+  RateLimitedErrorHandler(ListenerErrorHandler delegate, long intervalNanos) {
+    this.delegate = delegate;
+    this.intervalNanos = intervalNanos;
+  }
+
+  @Override
+  public void listenerFailed(Object listener, Method method, Throwable error) {
+    List<Object> kind =
+        Arrays.<Object>asList(
+            error.getClass(), listener != null ? listener.getClass() : null, method);
+    AtomicLong reported = lastReported.get(kind);
+    long now = System.nanoTime();
+    if (reported == null) {
+      AtomicLong created = new AtomicLong(now);
+      reported = lastReported.putIfAbsent(kind, created);
+      if (reported == null) {
+        delegate.listenerFailed(listener, method, error);
+        return;
+      }
+    }
+    long last = reported.get();
+    if (now - last >= intervalNanos && reported.compareAndSet(last, now)) {
+      delegate.listenerFailed(listener, method, error);
+    } else {
+      suppressed.incrementAndGet();
+    }
+  }
+
+  /** Returns the number of failures which were counted instead of being passed on. */
+  public long getSuppressedCount() {
+    return suppressed.get();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A SlowListenerHandler which passes slow calls of each listener class and method to another
+ * handler at most once per interval. Calls which quarantine a listener are always passed on. This
+ * class is thread-safe.
+ */
+final class RateLimitedSlowListenerHandler implements SlowListenerHandler {
+  private final SlowListenerHandler delegate;
+
+  private final long intervalNanos;
+
+  private final ConcurrentMap<List<Object>, AtomicLong> lastReported = new ConcurrentHashMap<>();
+
+  RateLimitedSlowListenerHandler(SlowListenerHandler delegate, long intervalNanos) {
+    this.delegate = delegate;
+    this.intervalNanos = intervalNanos;
+  }
+
+  @Override
+  public void slowListener(Object listener, Method method, long elapsedNanos, boolean quarantined) {
+    if (quarantined) {
+      delegate.slowListener(listener, method, elapsedNanos, true);
+      return;
+    }
+    List<Object> kind = Arrays.<Object>asList(listener.getClass(), method);
+    AtomicLong reported = lastReported.get(kind);
+    long now = System.nanoTime();
+    if (reported == null) {
+      AtomicLong created = new AtomicLong(now);
+      reported = lastReported.putIfAbsent(kind, created);
+      if (reported == null) {
+        delegate.slowListener(listener, method, elapsedNanos, false);
+        return;
+      }
+    }
+    long last = reported.get();
+    if (now - last >= intervalNanos && reported.compareAndSet(last, now)) {
+      delegate.slowListener(listener, method, elapsedNanos, false);
+    }
+  }
+}
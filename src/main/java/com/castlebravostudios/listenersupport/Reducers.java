@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The ResultReducers provided by the static methods of {@link ResultReducer}. */
+enum Reducers implements ResultReducer<Boolean, Boolean> {
+  ANY_TRUE {
+    @Override
+    public Boolean initial() {
+      return Boolean.FALSE;
+    }
+
+    @Override
+    public Boolean reduce(Boolean accumulated, Boolean result) {
+      return accumulated || Boolean.TRUE.equals(result);
+    }
+
+    @Override
+    public boolean isDecided(Boolean accumulated) {
+      return accumulated;
+    }
+  },
+  ALL_TRUE {
+    @Override
+    public Boolean initial() {
+      return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean reduce(Boolean accumulated, Boolean result) {
+      return accumulated && Boolean.TRUE.equals(result);
+    }
+
+    @Override
+    public boolean isDecided(Boolean accumulated) {
+      return !accumulated;
+    }
+  };
+
+  /** Returns whether the given reducer is one of the reducers provided by ResultReducer. */
+  static boolean isBuiltIn(ResultReducer<?, ?> reducer) {
+    return reducer instanceof Reducers
+        || reducer instanceof FirstNonNull
+        || reducer instanceof Collect;
+  }
+
+  enum FirstNonNull implements ResultReducer<Object, Object> {
+    INSTANCE;
+
+    @Override
+    public Object initial() {
+      return null;
+    }
+
+    @Override
+    public Object reduce(Object accumulated, Object result) {
+      return accumulated != null ? accumulated : result;
+    }
+
+    @Override
+    public boolean isDecided(Object accumulated) {
+      return accumulated != null;
+    }
+  }
+
+  enum Collect implements ResultReducer<Object, List<Object>> {
+    INSTANCE;
+
+    @Override
+    public List<Object> initial() {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public List<Object> reduce(List<Object> accumulated, Object result) {
+      accumulated.add(result);
+      return accumulated;
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+
+/**
+ * Invocation handler that calls listeners on the calling thread and combines the values they return
+ * with a {@link ResultReducer}. Iteration stops as soon as the reducer has decided the result, or
+ * once a {@link ConsumableEvent} passed to the method has been consumed.
+ */
+class ReducingInvocationHandler<T> extends DefaultInvocationHandler<T> {
+  private final ResultReducer<Object, Object> reducer;
+
+  @SuppressWarnings("unchecked")
+  ReducingInvocationHandler(Iterable<T> listeners, ResultReducer<?, ?> reducer) {
+    super(listeners);
+    this.reducer = (ResultReducer<Object, Object>) reducer;
+  }
+
+  @Override
+  protected Object dispatchEvent(Method method, Object[] args) throws Throwable {
+    ConsumableEvent event = findConsumableEvent(args);
+    Object[] listeners = snapshotListeners(method);
+    ListenerCall call = prepareCall(method);
+    Object result = reducer.initial();
+    for (int i = 0; i < listeners.length; i++) {
+      if (reducer.isDecided(result) || (event != null && event.isConsumed())) {
+        break;
+      }
+      result = reducer.reduce(result, call.invoke(listeners[i], args));
+    }
+    Class<?> returnType = method.getReturnType();
+    if (result == null && returnType.isPrimitive() && returnType != void.class) {
+      // The proxy would fail to unbox null with a NullPointerException that says nothing.
+      throw new NullPointerException(
+          "The reducer gave null for " + method.getName() + ", which returns " + returnType);
+    }
+    return result;
+  }
+
+  private static ConsumableEvent findConsumableEvent(Object[] args) {
+    if (args != null) {
+      for (Object arg : args) {
+        if (arg instanceof ConsumableEvent) {
+          return (ConsumableEvent) arg;
+        }
+      }
+    }
+    return null;
+  }
+}
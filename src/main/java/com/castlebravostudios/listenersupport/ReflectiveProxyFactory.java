@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Default ListenerProxyFactory, which uses java.lang.reflect.Proxy. The proxy class is only created
+ * when the first proxy is requested.
+ */
+@RequiredArgsConstructor
+final class ReflectiveProxyFactory<T> implements ListenerProxyFactory<T> {
+  private final Class<T> listenerClass;
+
+  private volatile Constructor<? extends T> constructor;
+
+  @Override
+  public T newProxy(InvocationHandler handler) {
+    try {
+      return getConstructor().newInstance(handler);
+    } catch (InstantiationException
+        | IllegalAccessException
+        | IllegalArgumentException
+        | InvocationTargetException
+        | NoSuchMethodException
+        | SecurityException e) {
+      throw new ProxyException(e);
+    }
+  }
+
+  @Override
+  public MethodInvoker getInvoker(Method method) {
+    return null;
+  }
+
+  private Constructor<? extends T> getConstructor() throws NoSuchMethodException {
+    Constructor<? extends T> result = constructor;
+    if (result == null) {
+      @SuppressWarnings("unchecked")
+      Class<? extends T> proxyClass =
+          (Class<? extends T>) Proxy.getProxyClass(listenerClass.getClassLoader(), listenerClass);
+      result = proxyClass.getConstructor(InvocationHandler.class);
+      constructor = result;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.List;
+
+/**
+ * Combines the values returned by the listeners of an event into a single result, for {@link
+ * ListenerSupport#fireReducing(ResultReducer)}. A reduction starts from {@link #initial()}, folds
+ * in the result of each listener with {@link #reduce(Object, Object)}, and stops calling listeners
+ * as soon as {@link #isDecided(Object)} returns true.
+ *
+ * @param <R> the type returned by the listeners.
+ * @param <A> the type of the combined result.
+ */
+public interface ResultReducer<R, A> {
+
+  /** Returns the result of an event which no listener received. */
+  A initial();
+
+  /** Returns the result after one more listener returned the given value. */
+  A reduce(A accumulated, R result);
+
+  /** Returns true if no further listener can change the result. */
+  default boolean isDecided(A accumulated) {
+    return false;
+  }
+
+  /** Returns true as soon as a listener returns true, for example to find a veto. */
+  static ResultReducer<Boolean, Boolean> anyTrue() {
+    return Reducers.ANY_TRUE;
+  }
+
+  /** Returns false as soon as a listener does not return true, for example to ask for consent. */
+  static ResultReducer<Boolean, Boolean> allTrue() {
+    return Reducers.ALL_TRUE;
+  }
+
+  /**
+   * Returns the first value returned by a listener which is not null, or null if there is none.
+   * Through {@link ListenerSupport#fireReducing(ResultReducer)}, a method returning a primitive
+   * type throws a NullPointerException if no listener was called, so check that there are
+   * listeners first.
+   */
+  @SuppressWarnings("unchecked")
+  static <R> ResultReducer<R, R> firstNonNull() {
+    return (ResultReducer<R, R>) Reducers.FirstNonNull.INSTANCE;
+  }
+
+  /**
+   * Returns every value returned by a listener, in the order the listeners were called. This never
+   * stops early, and can only be used by the fire methods which do not return the result through
+   * the listener method.
+   */
+  @SuppressWarnings("unchecked")
+  static <R> ResultReducer<R, List<R>> collect() {
+    return (ResultReducer<R, List<R>>) (ResultReducer<?, ?>) Reducers.Collect.INSTANCE;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Invocation handler that publishes events into a preallocated ring buffer, which a single consumer
+ * thread drains in batches. Firing an event only claims a slot and stores the method and arguments,
+ * so it does not allocate or hand off to another thread unless the buffer is full. Events are
+ * delivered in the order their slots were claimed.
+ *
+ * <p>The buffer is created the first time an event is fired, with the size given by {@link
+ * DispatchConfig#getRingBufferSize()}. The consumer thread is started when needed and stops again
+ * after it has been idle for a while. Each handler has its own buffer and consumer thread, so
+ * every filtered view and every key of a KeyedListenerSupport which fires buffered events runs a
+ * consumer of its own.
+ *
+ * <p>A listener which fires a buffered event from the consumer thread while the buffer is full
+ * can not wait for room, as only it could make room. Such events are delivered immediately
+ * instead, ahead of the events already in the buffer.
+ */
+class RingBufferInvocationHandler<T> extends DefaultInvocationHandler<T> {
+  private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  /** The longest time the consumer sleeps before checking again, in case a wakeup was missed. */
+  private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** The time a producer sleeps between checks for room in a full buffer. */
+  private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+  private static final ThreadFactory THREAD_FACTORY =
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("listener-support-ring-%d").build();
+
+  private final AtomicBoolean consumerRunning = new AtomicBoolean();
+
+  private volatile Ring ring;
+
+  private volatile Thread parkedConsumer;
+
+  /** The thread running the consumer, if there is one. */
+  private volatile Thread consumerThread;
+
+  public RingBufferInvocationHandler(Iterable<T> listeners) {
+    super(listeners);
+  }
+
+  @Override
+  protected void doIteration(Method method, Object[] args) throws Throwable {
+    Ring ring = getRing();
+    if (Thread.currentThread() == consumerThread) {
+      if (!ring.tryPublish(method, args)) {
+        deliver(method, args);
+      }
+      return;
+    }
+    ring.publish(method, args);
+    if (!consumerRunning.get() && consumerRunning.compareAndSet(false, true)) {
+      THREAD_FACTORY.newThread(new RingConsumer(ring)).start();
+    } else {
+      Thread parked = parkedConsumer;
+      if (parked != null) {
+        LockSupport.unpark(parked);
+      }
+    }
+  }
+
+  @Override
+  protected boolean offloadsQuarantined() {
+    return true;
+  }
+
+  @Override
+  int getQueuedEventCount() {
+    Ring current = ring;
+    return current != null ? (int) (current.claimed.get() - current.consumed) : 0;
+  }
+
+  private void deliver(Method method, Object[] args) {
+    try {
+      iterateListeners(method, args);
+    } catch (Throwable t) {
+      reportError(null, method, t);
+    }
+  }
+
+  private Ring getRing() {
+    Ring result = ring;
+    if (result == null) {
+      synchronized (this) {
+        result = ring;
+        if (result == null) {
+          DispatchConfig config = getConfig();
+          result = new Ring(config.getRingBufferSize(), config.getRingBufferWaitStrategy());
+          ring = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void awaitRoom(WaitStrategy strategy) {
+    switch (strategy) {
+      case PARK:
+        LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        break;
+      case YIELD:
+        Thread.yield();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * A multi-producer, single-consumer ring of events. Each slot records the sequence number of the
+   * event last published into it, which tells the consumer whether the slot is ready to be read.
+   */
+  private static final class Ring {
+    private final int mask;
+    private final Method[] methods;
+    private final Object[][] arguments;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final WaitStrategy strategy;
+
+    /** The sequence number of the next event to be consumed; every earlier slot can be reused. */
+    private volatile long consumed;
+
+    Ring(int size, WaitStrategy strategy) {
+      this.mask = size - 1;
+      this.methods = new Method[size];
+      this.arguments = new Object[size][];
+      this.published = new AtomicLongArray(size);
+      this.strategy = strategy;
+      for (int i = 0; i < size; i++) {
+        published.set(i, -1);
+      }
+    }
+
+    void publish(Method method, Object[] args) {
+      long sequence = claimed.getAndIncrement();
+      while (sequence - consumed > mask) {
+        awaitRoom(strategy);
+      }
+      store(sequence, method, args);
+    }
+
+    /** Publishes the event if there is room for it, without waiting. */
+    boolean tryPublish(Method method, Object[] args) {
+      long sequence;
+      do {
+        sequence = claimed.get();
+        if (sequence - consumed > mask) {
+          return false;
+        }
+      } while (!claimed.compareAndSet(sequence, sequence + 1));
+      store(sequence, method, args);
+      return true;
+    }
+
+    private void store(long sequence, Method method, Object[] args) {
+      int index = (int) sequence & mask;
+      methods[index] = method;
+      arguments[index] = args;
+      published.set(index, sequence);
+    }
+
+    /** Returns the sequence number after the last event which is ready to be consumed. */
+    long available(long from) {
+      long next = from;
+      while (next - from <= mask && published.get((int) next & mask) == next) {
+        next++;
+      }
+      return next;
+    }
+
+    boolean hasClaimedEvents() {
+      return claimed.get() != consumed;
+    }
+  }
+
+  private final class RingConsumer implements Runnable {
+    private final Ring ring;
+
+    RingConsumer(Ring ring) {
+      this.ring = ring;
+    }
+
+    @Override
+    public void run() {
+      consumerThread = Thread.currentThread();
+      long idleSince = System.nanoTime();
+      while (true) {
+        if (drain()) {
+          idleSince = System.nanoTime();
+        } else if (System.nanoTime() - idleSince > IDLE_TIMEOUT_NANOS) {
+          // Cleared first, so that it can not overwrite the thread of a consumer started next.
+          consumerThread = null;
+          consumerRunning.set(false);
+          // A producer which published before seeing the flag cleared will not start a new
+          // consumer, so its events have to be picked up here.
+          if (!ring.hasClaimedEvents() || !consumerRunning.compareAndSet(false, true)) {
+            return;
+          }
+          consumerThread = Thread.currentThread();
+          idleSince = System.nanoTime();
+        } else if (ring.strategy == WaitStrategy.PARK) {
+          parkedConsumer = Thread.currentThread();
+          if (ring.available(ring.consumed) == ring.consumed) {
+            LockSupport.parkNanos(CONSUMER_PARK_NANOS);
+          }
+          parkedConsumer = null;
+        } else if (ring.strategy == WaitStrategy.YIELD) {
+          Thread.yield();
+        }
+      }
+    }
+
+    /** Delivers every event which is ready, and returns whether there were any. */
+    private boolean drain() {
+      long from = ring.consumed;
+      long to = ring.available(from);
+      for (long sequence = from; sequence < to; sequence++) {
+        int index = (int) sequence & ring.mask;
+        Method method = ring.methods[index];
+        Object[] args = ring.arguments[index];
+        ring.methods[index] = null;
+        ring.arguments[index] = null;
+        deliver(method, args);
+      }
+      ring.consumed = to;
+      return to != from;
+    }
+  }
+}
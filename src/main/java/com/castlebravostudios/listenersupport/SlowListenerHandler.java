@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Told about listeners which took longer than the {@link
+ * DispatchConfig#getListenerLatencyBudgetNanos() latency budget} to handle an event.
+ * Implementations are called on the thread which delivered the event, right after the listener
+ * returned, and should be quick.
+ */
+public interface SlowListenerHandler {
+
+  /**
+   * Called after the given listener took elapsedNanos to handle the given method. quarantined is
+   * true if this call caused the listener to be quarantined.
+   */
+  void slowListener(Object listener, Method method, long elapsedNanos, boolean quarantined);
+
+  /** Returns a handler which logs every slow call to java.util.logging at level WARNING. */
+  static SlowListenerHandler logging() {
+    return SlowListenerHandlers.LOGGING;
+  }
+
+  /**
+   * Returns a handler which passes the slow calls of each listener class and method to the
+   * delegate at most once per interval. Calls which quarantine a listener are always passed on.
+   */
+  static SlowListenerHandler rateLimited(
+      SlowListenerHandler delegate, long interval, TimeUnit unit) {
+    return new RateLimitedSlowListenerHandler(delegate, unit.toNanos(interval));
+  }
+}
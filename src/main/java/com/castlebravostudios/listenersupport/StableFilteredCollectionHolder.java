@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 Brook Heisler
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in the
+ * Software without restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.castlebravostudios.listenersupport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import com.google.common.collect.Iterators;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A filtered view of a SnapshotCollectionHolder for filters whose result never changes for a given
+ * listener. The listeners passing the filter are computed once per snapshot of the base holder and
+ * reused until the registered listeners change, so firing only visits the listeners which pass the
+ * filter. Registering and Unregistering listeners on a StableFilteredCollectionHolder is not
+ * permitted.
+ */
+@RequiredArgsConstructor
+class StableFilteredCollectionHolder<T> implements SnapshotCollectionHolder<T> {
+
+  private final SnapshotCollectionHolder<T> base;
+  private final ListenerFilter<T> filter;
+
+  private volatile FilteredSnapshot cache = new FilteredSnapshot(null, new Object[0]);
+
+  @Override
+  public Object[] snapshot() {
+    Object[] baseSnapshot = base.snapshot();
+    FilteredSnapshot cached = cache;
+    if (cached.base != baseSnapshot) {
+      cached = new FilteredSnapshot(baseSnapshot, applyFilter(baseSnapshot));
+      cache = cached;
+    }
+    return cached.filtered;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object[] applyFilter(Object[] listeners) {
+    List<Object> passed = new ArrayList<>();
+    for (Object listener : listeners) {
+      if (filter.passesFilter((T) listener)) {
+        passed.add(listener);
+      }
+    }
+    return passed.toArray();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<T> iterator() {
+    return Iterators.forArray((T[]) snapshot());
+  }
+
+  @Override
+  public void registerListener(T listener) {
+    throw new UnsupportedOperationException(
+        "Can't insert elements into a filtered collection holder. ");
+  }
+
+  @Override
+  public void unregisterListener(T listener) {
+    throw new UnsupportedOperationException(
+        "Can't remove elements from a filtered collection holder. ");
+  }
+
+  @Override
+  public int size() {
+    return snapshot().length;
+  }
+
+  /** The listeners which passed the filter, and the base snapshot they were computed from. */
+  @RequiredArgsConstructor
+  private static final class FilteredSnapshot {
+    private final Object[] base;
+    private final Object[] filtered;
+  }
+}
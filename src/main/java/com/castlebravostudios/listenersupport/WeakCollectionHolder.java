@@ -23,10 +23,12 @@ package com.castlebravostudios.listenersupport;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.Set;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractIterator;
 import lombok.RequiredArgsConstructor;
@@ -34,63 +36,186 @@ import lombok.RequiredArgsConstructor;
 /**
  * A collection holder that holds a set of WeakReferences to listeners. The iterator returned from
  * iterator() is guaranteed to never return a null reference. Clients may not insert a null
- * reference. The collection is cleaned of dead references before returning from iterator(). <br>
+ * reference. Listeners are compared by identity and indexed by their identity hash, so
+ * unregistering a listener does not scan the other listeners. <br>
+ * References cleared by the garbage collector are removed in the background by a single reaper
+ * thread shared by all weak holders, which also publishes the new snapshot of references, so
+ * firing never has to clean up or copy the collection itself. <br>
  * This class is thread-safe.
  */
 class WeakCollectionHolder<T> implements CollectionHolder<T> {
 
-  private final CopyOnWriteArraySet<WeakReference<T>> listeners = new CopyOnWriteArraySet<>();
+  private static final ReferenceQueue<Object> REFERENCE_QUEUE = new ReferenceQueue<>();
 
-  private final ReferenceQueue<T> referenceQueue = new ReferenceQueue<>();
+  static {
+    Thread reaper = new Thread(WeakCollectionHolder::reapReferences, "listener-support-reaper");
+    reaper.setDaemon(true);
+    // The reaper lives as long as the JVM, so it must not pin the loader of whoever started it.
+    reaper.setContextClassLoader(null);
+    reaper.start();
+  }
+
+  private final IndexedArray references = new IndexedArray(new HashMap<>());
+
+  /** The most recently published snapshot of references, or null if it is out of date. */
+  private volatile Object[] published = new Object[0];
 
   @Override
-  public void registerListener(T listener) {
+  public synchronized void registerListener(T listener) {
     Preconditions.checkNotNull(listener);
-    listeners.add(new WeakReference<>(listener, referenceQueue));
+    ListenerReference<T> reference = new ListenerReference<>(listener, this, REFERENCE_QUEUE);
+    if (references.add(reference)) {
+      published = null;
+    } else {
+      reference.clear();
+    }
+  }
+
+  @Override
+  public synchronized void unregisterListener(T listener) {
+    Object removed = references.remove(new ListenerReference<>(listener, null, null));
+    if (removed != null) {
+      ((Reference<?>) removed).clear();
+      published = null;
+    }
+  }
+
+  @Override
+  public synchronized void registerAll(Collection<? extends T> added) {
+    for (T listener : added) {
+      registerListener(listener);
+    }
+  }
+
+  @Override
+  public synchronized void unregisterAll(Collection<? extends T> removed) {
+    for (T listener : removed) {
+      unregisterListener(listener);
+    }
   }
 
   @Override
-  public void unregisterListener(T listener) {
-    for (WeakReference<T> ref : listeners) {
-      if (listener == ref.get()) {
-        listeners.remove(ref);
-        break;
+  public synchronized void replaceAll(Collection<? extends T> replacements) {
+    Object[] current = references.toArray();
+    references.clear();
+    published = null;
+    registerAll(replacements);
+    for (Object reference : current) {
+      // Listeners which stay registered must still be called by fires which are iterating.
+      if (!references.contains(reference)) {
+        ((Reference<?>) reference).clear();
       }
     }
   }
 
-  private void cleanup() {
-    List<Reference<?>> references = new ArrayList<>();
-    Reference<?> ref = referenceQueue.poll();
-    while (ref != null) {
-      references.add(ref);
-      ref = referenceQueue.poll();
+  private synchronized void reap(ListenerReference<?> reference) {
+    if (references.remove(reference) != null) {
+      published = null;
+    }
+  }
+
+  private Object[] snapshot() {
+    Object[] snapshot = published;
+    if (snapshot == null) {
+      snapshot = publish();
+    }
+    return snapshot;
+  }
+
+  private synchronized Object[] publish() {
+    if (published == null) {
+      published = references.toArray();
     }
-    listeners.removeAll(references);
+    return published;
   }
 
   @Override
   public Iterator<T> iterator() {
-    cleanup();
-    return new WeakReferenceIterator(listeners.iterator());
+    return new WeakReferenceIterator(snapshot());
   }
 
   @Override
-  public int size() {
-    cleanup();
-    return listeners.size();
+  public synchronized int size() {
+    return references.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return snapshot().length == 0;
+  }
+
+  /**
+   * Body of the reaper thread. Cleared references are removed from their holders in batches, and
+   * each affected holder publishes its new snapshot once per batch. Unexpected exceptions are
+   * passed to the global error handler rather than stopping the reaper.
+   */
+  private static void reapReferences() {
+    while (true) {
+      try {
+        Set<WeakCollectionHolder<?>> holders =
+            Collections.newSetFromMap(new IdentityHashMap<WeakCollectionHolder<?>, Boolean>());
+        Reference<?> reference = REFERENCE_QUEUE.remove();
+        while (reference != null) {
+          ListenerReference<?> listenerReference = (ListenerReference<?>) reference;
+          listenerReference.owner.reap(listenerReference);
+          holders.add(listenerReference.owner);
+          reference = REFERENCE_QUEUE.poll();
+        }
+        for (WeakCollectionHolder<?> holder : holders) {
+          holder.publish();
+        }
+      } catch (InterruptedException e) {
+        // The reaper runs for the lifetime of the JVM.
+      } catch (RuntimeException e) {
+        DispatchConfig.global().reportListenerFailure(null, null, e);
+      }
+    }
+  }
+
+  /**
+   * A weak reference to a listener which compares equal to references to the same listener. The
+   * identity hash is captured up front, so a reference keeps its position in the index after it
+   * has been cleared.
+   */
+  private static final class ListenerReference<T> extends WeakReference<T> {
+    private final WeakCollectionHolder<T> owner;
+    private final int hash;
+
+    ListenerReference(T listener, WeakCollectionHolder<T> owner, ReferenceQueue<Object> queue) {
+      super(listener, queue);
+      this.owner = owner;
+      this.hash = System.identityHashCode(listener);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof ListenerReference)) {
+        return false;
+      }
+      Object listener = get();
+      return listener != null && listener == ((ListenerReference<?>) obj).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
   }
 
   @RequiredArgsConstructor
   private final class WeakReferenceIterator extends AbstractIterator<T> {
 
-    private final Iterator<WeakReference<T>> base;
+    private final Object[] references;
+    private int index;
 
     @Override
+    @SuppressWarnings("unchecked")
     protected T computeNext() {
-      while (base.hasNext()) {
-        WeakReference<T> ref = base.next();
-        T listener = ref.get();
+      while (index < references.length) {
+        T listener = ((ListenerReference<T>) references[index++]).get();
         if (listener != null) {
           return listener;
         }
@@ -24,7 +24,8 @@ import java.lang.reflect.Method;
 
 /**
  * This is an InvocationHandler that ensures that listener methods are always called asynchronously
- * on a worker thread.
+ * on a worker thread. Events are handed to the executor given by {@link
+ * DispatchConfig#getAsyncExecutor()}.
  */
 class WtLaterInvocationHandler<T> extends DefaultInvocationHandler<T> {
   public WtLaterInvocationHandler(Iterable<T> listeners) {
@@ -34,6 +35,11 @@ class WtLaterInvocationHandler<T> extends DefaultInvocationHandler<T> {
   @Override
   protected void doIteration(final Method method, final Object[] args) throws Throwable {
     Runnable wtRunnable = new InvocationHandlerRunnable(method, args);
-    new Thread(wtRunnable).start();
+    executeEvent(getConfig().getAsyncExecutor(), wtRunnable);
+  }
+
+  @Override
+  protected boolean offloadsQuarantined() {
+    return true;
   }
 }
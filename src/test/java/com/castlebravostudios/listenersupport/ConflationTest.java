@@ -0,0 +1,120 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflationTest {
+
+  public interface StateListener {
+    void valueChanged(@ConflationKey String name, int value);
+
+    void reset(int generation);
+  }
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private ListenerSupport<StateListener> support;
+
+  private StateListener listener;
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(StateListener.class);
+    support.getConfig().setAsyncExecutor(tasks::add);
+    listener = mock(StateListener.class);
+    support.registerListener(listener);
+  }
+
+  @Test
+  public void testEventsWithEqualKeysAreConflated() throws Exception {
+    support.fireConflated().valueChanged("a", 1);
+    support.fireConflated().valueChanged("b", 1);
+    support.fireConflated().valueChanged("a", 2);
+    runTasks();
+
+    verify(listener, never()).valueChanged("a", 1);
+    verify(listener).valueChanged("a", 2);
+    verify(listener).valueChanged("b", 1);
+  }
+
+  @Test
+  public void testMethodsWithoutKeyAreConflated() throws Exception {
+    support.fireConflated().reset(1);
+    support.fireConflated().reset(2);
+    assertEquals(1, tasks.size());
+    runTasks();
+
+    verify(listener, never()).reset(1);
+    verify(listener).reset(2);
+  }
+
+  @Test
+  public void testEventsAfterDrainAreDeliveredAgain() throws Exception {
+    support.fireConflated().reset(1);
+    runTasks();
+    support.fireConflated().reset(1);
+    runTasks();
+
+    verify(listener, times(2)).reset(1);
+  }
+
+  @Test(timeout = 5000)
+  public void testDrainsDoNotOverlapOnThreadPool() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    support.getConfig().setAsyncExecutor(executor);
+    int eventCount = 10000;
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger last = new AtomicInteger(-1);
+    List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    support.registerListener(
+        new StateListener() {
+          @Override
+          public void valueChanged(String name, int value) {
+            if (inFlight.incrementAndGet() != 1) {
+              errors.add("called concurrently");
+            }
+            if (value <= last.get()) {
+              errors.add(value + " delivered after " + last.get());
+            }
+            // Keep the drain busy, so that later events arrive while it is running.
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            last.set(value);
+            inFlight.decrementAndGet();
+          }
+
+          @Override
+          public void reset(int generation) {}
+        });
+
+    for (int k = 0; k < eventCount; k++) {
+      support.fireConflated().valueChanged("a", k);
+    }
+    while (last.get() != eventCount - 1) {
+      Thread.yield();
+    }
+    executor.shutdown();
+
+    assertEquals(Collections.emptyList(), errors);
+  }
+
+  private void runTasks() {
+    List<Runnable> queued = new ArrayList<>(tasks);
+    tasks.clear();
+    for (Runnable task : queued) {
+      task.run();
+    }
+  }
+}
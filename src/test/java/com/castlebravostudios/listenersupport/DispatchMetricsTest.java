@@ -0,0 +1,118 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DispatchMetricsTest {
+
+  public interface PriceListener {
+    void price(String symbol, double price);
+
+    void closed();
+  }
+
+  private ListenerSupport<PriceListener> support;
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(PriceListener.class);
+    support.getConfig().setMetricsEnabled(true);
+  }
+
+  @Test
+  public void testCountsFiresInvocationsAndFailures() throws Exception {
+    support.registerListener(new CountingListener());
+    support.registerListener(new FailingListener());
+
+    support.fire().price("X", 1.0);
+    try {
+      support.fire().closed();
+    } catch (IllegalStateException expected) {
+      // The failing listener's exception is propagated.
+    }
+
+    DispatchStatistics statistics = support.getStatistics();
+    assertEquals(2, statistics.getListenerCount());
+    assertEquals(2, statistics.getFires());
+    MethodStatistics price = statistics.getMethods().get("price(String, double)");
+    assertEquals(1, price.getFires());
+    assertEquals(2, price.getListenerInvocations());
+    assertEquals(0, price.getFailures());
+    assertTrue(price.getP99LatencyNanos() > 0);
+    assertEquals(1, statistics.getMethods().get("closed()").getFailures());
+  }
+
+  @Test
+  public void testNothingIsRecordedWhileDisabled() throws Exception {
+    support.getConfig().setMetricsEnabled(false);
+    support.registerListener(new CountingListener());
+    support.fire().price("X", 1.0);
+
+    assertEquals(0, support.getStatistics().getFires());
+  }
+
+  @Test
+  public void testReportsQueueDepths() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    support.getConfig().setAsyncExecutor(tasks::add);
+    support.registerListener(new CountingListener());
+    support.registerListener(new CountingListener());
+
+    support.fireToMailboxes().price("X", 1.0);
+    support.fireConflated().price("X", 1.0);
+    support.fireConflated().price("X", 2.0);
+    support.fireConflated().closed();
+
+    DispatchStatistics statistics = support.getStatistics();
+    assertEquals(2, statistics.getMailboxEvents());
+    assertEquals(2, statistics.getConflatedEvents());
+    assertEquals(0, statistics.getBufferedEvents());
+    assertEquals(0, statistics.getEdtQueuedEvents());
+
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    statistics = support.getStatistics();
+    assertEquals(0, statistics.getMailboxEvents());
+    assertEquals(0, statistics.getConflatedEvents());
+  }
+
+  @Test
+  public void testStatisticsAreExportedThroughJmx() throws Exception {
+    support.registerListener(new CountingListener());
+    support.fire().closed();
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = support.registerMBean("metrics-test");
+    try {
+      assertEquals(1L, server.getAttribute(name, "Fires"));
+      assertEquals(1, server.getAttribute(name, "ListenerCount"));
+      assertEquals(1, ((TabularData) server.getAttribute(name, "Methods")).size());
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private static class CountingListener implements PriceListener {
+    @Override
+    public void price(String symbol, double price) {}
+
+    @Override
+    public void closed() {}
+  }
+
+  private static class FailingListener extends CountingListener {
+    @Override
+    public void closed() {
+      throw new IllegalStateException();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class GeneratedListenerSupportTest {
+
+  @GenerateListenerSupport
+  public interface GeneratedListener {
+    void onEvent(String name, int count);
+
+    void onIo(List<String> lines) throws IOException;
+
+    default void onDefault(long value) {}
+  }
+
+  @Mock private GeneratedListener listener;
+
+  private ListenerSupport<GeneratedListener> support;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    support = ListenerSupport.create(GeneratedListener.class);
+    support.registerListener(listener);
+  }
+
+  @Test
+  public void testUsesGeneratedProxy() throws Exception {
+    assertSame(
+        GeneratedListenerSupportTest_GeneratedListenerListenerSupport.class,
+        support.fire().getClass().getEnclosingClass());
+  }
+
+  @Test
+  public void testGeneratedProxyCallsListeners() throws Exception {
+    support.fire().onEvent("event", 3);
+    support.fire().onDefault(7L);
+
+    verify(listener).onEvent("event", 3);
+    verify(listener).onDefault(7L);
+  }
+
+  @Test
+  public void testGeneratedProxyPropagatesDeclaredExceptions() throws Exception {
+    IOException exception = new IOException();
+    doThrow(exception).when(listener).onIo(null);
+
+    try {
+      support.fire().onIo(null);
+      fail();
+    } catch (IOException e) {
+      assertSame(exception, e);
+    }
+  }
+
+  @Test
+  public void testGeneratedInvokerCallsListenerDirectly() throws Throwable {
+    Object result =
+        ProxyFactories.forListenerClass(GeneratedListener.class)
+            .getInvoker(GeneratedListener.class.getMethod("onEvent", String.class, int.class))
+            .invoke(listener, new Object[] {"event", 3});
+
+    assertNull(result);
+    verify(listener).onEvent("event", 3);
+  }
+
+  @Test
+  public void testGeneratedProxyRecordsMetricsWhenEnabled() throws Exception {
+    support.getConfig().setMetricsEnabled(true);
+
+    support.fire().onEvent("event", 3);
+
+    assertEquals(1, support.getStatistics().getFires());
+    verify(listener).onEvent("event", 3);
+  }
+
+  @Test
+  public void testGeneratedProxyOnFilteredView() throws Exception {
+    support.filter(l -> l != listener).fire().onEvent("event", 3);
+
+    verify(listener, never()).onEvent("event", 3);
+  }
+
+  @Test
+  public void testGeneratedClassName() throws Exception {
+    assertEquals(
+        GeneratedListenerSupportTest_GeneratedListenerListenerSupport.class.getName(),
+        ProxyFactories.generatedClassName(GeneratedListener.class));
+  }
+}
@@ -0,0 +1,34 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class HighChurnListenerSupportTest extends ListenerSupportTestBase {
+
+  @Override
+  ListenerSupport<TestListener> getListenerSupport() {
+    return ListenerSupport.createHighChurn(TestListener.class);
+  }
+
+  @Test
+  public void testFiresRemainingListenersAfterChurn() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    List<TestListener> listeners = new ArrayList<>();
+    for (int k = 0; k < 1000; k++) {
+      TestListener listener = calls::incrementAndGet;
+      listeners.add(listener);
+      support.registerListener(listener);
+    }
+    support.fire().call();
+    for (int k = 0; k < 1000; k += 2) {
+      support.unregisterListener(listeners.get(k));
+    }
+    support.fire().call();
+
+    assertEquals(500, support.size());
+    assertEquals(1500, calls.get());
+  }
+}
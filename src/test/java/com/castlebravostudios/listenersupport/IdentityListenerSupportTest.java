@@ -0,0 +1,54 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class IdentityListenerSupportTest extends ListenerSupportTestBase {
+
+  /** Listener whose equals() and hashCode() must never be called. */
+  private static final class EqualityHostileListener implements TestListener {
+    private final AtomicInteger calls;
+
+    EqualityHostileListener(AtomicInteger calls) {
+      this.calls = calls;
+    }
+
+    @Override
+    public void call() {
+      calls.incrementAndGet();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      throw new AssertionError("equals() called");
+    }
+
+    @Override
+    public int hashCode() {
+      throw new AssertionError("hashCode() called");
+    }
+  }
+
+  @Override
+  ListenerSupport<TestListener> getListenerSupport() {
+    return ListenerSupport.createIdentity(TestListener.class);
+  }
+
+  @Test
+  public void testComparesListenersByIdentity() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    TestListener first = new EqualityHostileListener(calls);
+    TestListener second = new EqualityHostileListener(calls);
+
+    support.registerListener(first);
+    support.registerListener(second);
+    support.registerListener(first);
+    support.fire().call();
+    support.unregisterListener(first);
+    support.fire().call();
+
+    assertEquals(1, support.size());
+    assertEquals(3, calls.get());
+  }
+}
@@ -0,0 +1,90 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import com.castlebravostudios.listenersupport.ListenerSupportTestBase.TestListener;
+
+public class KeyedListenerSupportTest {
+
+  @Mock private TestListener listener1;
+
+  @Mock private TestListener listener2;
+
+  private KeyedListenerSupport<String, TestListener> support;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    support = KeyedListenerSupport.create(TestListener.class);
+    support.registerListener("a", listener1);
+    support.registerListener(Arrays.asList("a", "b"), listener2);
+  }
+
+  @Test
+  public void testFiresOnlyListenersForKey() throws Exception {
+    support.fire("b").call();
+
+    verify(listener1, never()).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testUnregisterFromAllKeys() throws Exception {
+    support.unregisterListener(listener2);
+    support.fire("a").call();
+
+    verify(listener1).call();
+    verify(listener2, never()).call();
+    assertEquals(Arrays.asList("a"), Arrays.asList(support.keys().toArray()));
+  }
+
+  @Test
+  public void testFireUnknownKey() throws Exception {
+    support.fire("c").call();
+
+    assertEquals(0, support.size("c"));
+    assertFalse(support.keys().contains("c"));
+  }
+
+  @Test
+  public void testCachedProxyFollowsKeyAfterItIsRemoved() throws Exception {
+    TestListener proxy = support.fire("b");
+    TestListener unknown = support.fire("c");
+    support.unregisterListener("b", listener2);
+    support.registerListener("b", listener1);
+    support.registerListener("c", listener2);
+
+    proxy.call();
+    unknown.call();
+
+    verify(listener1).call();
+    verify(listener2).call();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testForKeyRejectsRegistration() throws Exception {
+    support.forKey("a").registerListener(listener2);
+  }
+
+  @Test
+  public void testWeakKeyIsRemovedAfterListenerIsCollected() throws Exception {
+    KeyedListenerSupport<String, TestListener> weak =
+        KeyedListenerSupport.createWeak(TestListener.class);
+    TestListener listener = Mockito.mock(TestListener.class);
+    weak.registerListener("a", listener);
+    listener = null;
+
+    while (weak.size("a") > 0) {
+      System.gc();
+    }
+    assertFalse(weak.keys().contains("a"));
+  }
+}
@@ -0,0 +1,128 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+import com.google.common.base.Throwables;
+
+public class ListenerErrorHandlerTest {
+
+  public interface FailingListener {
+    void fail();
+  }
+
+  private static final IllegalStateException FAILURE = new IllegalStateException();
+
+  private final FailingListener listener =
+      () -> {
+        throw FAILURE;
+      };
+
+  private ListenerSupport<FailingListener> support;
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(FailingListener.class);
+    support.getConfig().setAsyncExecutor(Runnable::run);
+    support.registerListener(listener);
+  }
+
+  @Test
+  public void testAsyncFailuresAreCollected() throws Exception {
+    CollectingErrorHandler errors = ListenerErrorHandler.collecting(1);
+    support.getConfig().setErrorHandler(errors);
+
+    support.fireOnWtLater().fail();
+    support.fireToMailboxes().fail();
+
+    List<Throwable> collected = errors.drain();
+    assertEquals(1, collected.size());
+    assertSame(FAILURE, collected.get(0));
+    assertEquals(1, errors.getDroppedCount());
+  }
+
+  @Test
+  public void testRepeatedFailuresAreRateLimited() throws Exception {
+    ListenerErrorHandler delegate = mock(ListenerErrorHandler.class);
+    RateLimitedErrorHandler errors =
+        ListenerErrorHandler.rateLimited(delegate, 1, TimeUnit.HOURS);
+    support.getConfig().setErrorHandler(errors);
+
+    for (int i = 0; i < 10; i++) {
+      support.fireToMailboxes().fail();
+    }
+
+    verify(delegate, times(1)).listenerFailed(eq(listener), any(), eq(FAILURE));
+    assertEquals(9, errors.getSuppressedCount());
+  }
+
+  @Test
+  public void testPropagatedFailuresAreNotReported() throws Exception {
+    ListenerErrorHandler errors = mock(ListenerErrorHandler.class);
+    support.getConfig().setErrorHandler(errors);
+
+    Throwable thrown = null;
+    try {
+      support.fireOnEdtAndWait().fail();
+    } catch (RuntimeException e) {
+      thrown = e;
+    }
+
+    assertSame(FAILURE, Throwables.getRootCause(thrown));
+    verify(errors, never()).listenerFailed(any(), any(), any());
+  }
+
+  @Test
+  public void testThrowingErrorHandlerDoesNotStopQueuedModes() throws Exception {
+    Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+    List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+    Thread.setDefaultUncaughtExceptionHandler((thread, e) -> uncaught.add(e));
+    try {
+      assertKeepsDelivering(ListenerSupport::fireBuffered);
+      assertKeepsDelivering(ListenerSupport::fireConflated);
+      assertKeepsDelivering(ListenerSupport::fireToMailboxes);
+      assertKeepsDelivering(ListenerSupport::fireOnEdtLater);
+    } finally {
+      Thread.setDefaultUncaughtExceptionHandler(previous);
+    }
+    assertFalse(uncaught.isEmpty());
+    assertSame(FAILURE, uncaught.get(0).getSuppressed()[0]);
+  }
+
+  private void assertKeepsDelivering(
+      Function<ListenerSupport<FailingListener>, FailingListener> mode) throws Exception {
+    ListenerSupport<FailingListener> failing = ListenerSupport.create(FailingListener.class);
+    failing.getConfig().setAsyncExecutor(Runnable::run);
+    failing
+        .getConfig()
+        .setErrorHandler(
+            (listener, method, error) -> {
+              throw new IllegalStateException("error handler failed");
+            });
+    CountDownLatch delivered = new CountDownLatch(2);
+    failing.registerListener(
+        () -> {
+          delivered.countDown();
+          throw FAILURE;
+        });
+
+    mode.apply(failing).fail();
+    mode.apply(failing).fail();
+
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,112 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ListenerMonitorTest {
+
+  public interface TickListener {
+    void tick();
+  }
+
+  private final List<Runnable> offloaded = new ArrayList<>();
+
+  private ListenerSupport<TickListener> support;
+
+  private SlowListenerHandler slowListenerHandler;
+
+  private int slowCalls;
+
+  private final TickListener slow =
+      () -> {
+        slowCalls++;
+        try {
+          Thread.sleep(2);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      };
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(TickListener.class);
+    slowListenerHandler = mock(SlowListenerHandler.class);
+    DispatchConfig config = support.getConfig();
+    config.setListenerLatencyBudget(1, TimeUnit.MILLISECONDS);
+    config.setSlowListenerHandler(slowListenerHandler);
+    config.setQuarantineThreshold(2);
+    config.setQuarantineExecutor(offloaded::add);
+    support.registerListener(slow);
+  }
+
+  @Test
+  public void testSlowListenerIsReported() throws Exception {
+    support.fire().tick();
+
+    verify(slowListenerHandler).slowListener(eq(slow), any(), anyLong(), eq(false));
+  }
+
+  @Test
+  public void testQuarantinedListenerIsOffloaded() throws Exception {
+    support.getConfig().setAsyncExecutor(Runnable::run);
+    support.fireOnWtLater().tick();
+    support.fireOnWtLater().tick();
+    support.fireOnWtLater().tick();
+
+    verify(slowListenerHandler).slowListener(eq(slow), any(), anyLong(), eq(true));
+    assertTrue(support.getConfig().getQuarantinedListeners().contains(slow));
+    assertEquals(2, slowCalls);
+    assertEquals(1, offloaded.size());
+    offloaded.get(0).run();
+    assertEquals(3, slowCalls);
+  }
+
+  @Test
+  public void testSynchronousFireSuspendsInsteadOfOffloading() throws Exception {
+    support.fire().tick();
+    support.fire().tick();
+    support.fire().tick();
+
+    assertTrue(support.getConfig().getQuarantinedListeners().contains(slow));
+    assertEquals(2, slowCalls);
+    assertTrue(offloaded.isEmpty());
+  }
+
+  @Test
+  public void testSuspendedListenerIsSkippedUntilReleased() throws Exception {
+    support.getConfig().setQuarantineAction(QuarantineAction.SUSPEND);
+    support.fire().tick();
+    support.fire().tick();
+    support.fire().tick();
+    assertEquals(2, slowCalls);
+
+    assertTrue(support.getConfig().releaseFromQuarantine(slow));
+    support.fire().tick();
+    assertEquals(3, slowCalls);
+  }
+
+  @Test
+  public void testRateLimitedHandlerAlwaysReportsQuarantine() throws Exception {
+    SlowListenerHandler limited =
+        SlowListenerHandler.rateLimited(slowListenerHandler, 1, TimeUnit.HOURS);
+    Method tick = TickListener.class.getMethod("tick");
+
+    limited.slowListener(slow, tick, 5, false);
+    limited.slowListener(slow, tick, 5, false);
+    limited.slowListener(slow, tick, 5, true);
+
+    verify(slowListenerHandler).slowListener(slow, tick, 5, false);
+    verify(slowListenerHandler).slowListener(slow, tick, 5, true);
+  }
+}
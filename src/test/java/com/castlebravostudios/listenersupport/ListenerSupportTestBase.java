@@ -1,12 +1,25 @@
 package com.castlebravostudios.listenersupport;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -53,6 +66,31 @@ public abstract class ListenerSupportTestBase {
     verify(listener1, never()).call();
   }
 
+  @Test
+  public void testListenerExceptionIsNotWrapped() throws Exception {
+    IllegalStateException exception = new IllegalStateException();
+    doThrow(exception).when(listener1).call();
+    support.registerListener(listener1);
+
+    try {
+      support.fire().call();
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(exception, e);
+    }
+  }
+
+  @Test
+  public void testPrewarmedProxiesAreReused() throws Exception {
+    support.prewarm();
+    TestListener proxy = support.fire();
+    support.registerListener(listener1);
+
+    assertSame(proxy, support.fire());
+    proxy.call();
+    verify(listener1).call();
+  }
+
   @Test
   public void testAssertSizeIsCorrect() throws Exception {
     assertEquals(0, support.size());
@@ -71,6 +109,20 @@ public abstract class ListenerSupportTestBase {
     verify(listener2, never()).call();
   }
 
+  @Test
+  public void testStableFilterSeesNewRegistrations() throws Exception {
+    ListenerSupport<TestListener> view = support.filterStable(listener -> listener != listener2);
+    support.registerListener(listener1);
+    view.fire().call();
+    support.registerListener(listener2);
+    support.unregisterListener(listener1);
+    view.fire().call();
+
+    verify(listener1).call();
+    verify(listener2, never()).call();
+    assertEquals(0, view.size());
+  }
+
   @Test(timeout = 1000)
   public void testInvokeInParallel() throws Exception {
     int listenerCount = 10000;
@@ -87,6 +139,319 @@ public abstract class ListenerSupportTestBase {
     latch.await();
   }
 
+  @Test(timeout = 1000)
+  public void testInvokeInParallelUsesConfiguredPool() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    support.getConfig().setParallelPool(pool);
+    support.getConfig().setParallelThreshold(4);
+    int listenerCount = 100;
+    CountDownLatch latch = new CountDownLatch(listenerCount);
+    List<TestListener> listeners = new ArrayList<>();
+    for (int k = 0; k < listenerCount; k++) {
+      TestListener listener =
+          () -> {
+            if (ForkJoinTask.getPool() == pool) {
+              latch.countDown();
+            }
+          };
+      listeners.add(listener);
+      support.registerListener(listener);
+    }
+
+    support.fireInParallel().call();
+
+    latch.await();
+    pool.shutdown();
+  }
+
+  @Test
+  public void testFireOnWtLaterUsesConfiguredExecutor() throws Exception {
+    support.getConfig().setAsyncExecutor(Runnable::run);
+    support.registerListener(listener1);
+
+    support.fireOnWtLater().call();
+
+    verify(listener1).call();
+  }
+
+  @Test(timeout = 5000)
+  public void testFireBufferedDeliversEventsFromSeveralThreads() throws Exception {
+    support.getConfig().setRingBufferSize(8);
+    int threadCount = 4;
+    int eventCount = 500;
+    CountDownLatch latch = new CountDownLatch(threadCount * eventCount);
+    support.registerListener(latch::countDown);
+
+    for (int k = 0; k < threadCount; k++) {
+      new Thread(
+              () -> {
+                for (int i = 0; i < eventCount; i++) {
+                  support.fireBuffered().call();
+                }
+              })
+          .start();
+    }
+
+    latch.await();
+  }
+
+  @Test(timeout = 5000)
+  public void testFireBufferedFromListenerWhenBufferIsFull() throws Exception {
+    support.getConfig().setRingBufferSize(2);
+    int eventCount = 10;
+    CountDownLatch latch = new CountDownLatch(eventCount + 1);
+    AtomicInteger calls = new AtomicInteger();
+    support.registerListener(
+        () -> {
+          if (calls.getAndIncrement() == 0) {
+            for (int k = 0; k < eventCount; k++) {
+              support.fireBuffered().call();
+            }
+          }
+          latch.countDown();
+        });
+
+    support.fireBuffered().call();
+
+    latch.await();
+  }
+
+  @Test(timeout = 1000)
+  public void testFireOnEdtLaterDeliversEveryEventInBatches() throws Exception {
+    support.getConfig().setEdtBatchSize(3);
+    int eventCount = 10;
+    CountDownLatch latch = new CountDownLatch(eventCount);
+    support.registerListener(
+        () -> {
+          assertTrue(SwingUtilities.isEventDispatchThread());
+          latch.countDown();
+        });
+
+    for (int k = 0; k < eventCount; k++) {
+      support.fireOnEdtLater().call();
+    }
+
+    latch.await();
+  }
+
+  @Test(timeout = 1000)
+  public void testFireOnEdtLaterDeliversWithTinyTimeBudget() throws Exception {
+    support.getConfig().setEdtTimeBudget(1, TimeUnit.NANOSECONDS);
+    int eventCount = 10;
+    CountDownLatch latch = new CountDownLatch(eventCount);
+    support.registerListener(latch::countDown);
+
+    for (int k = 0; k < eventCount; k++) {
+      support.fireOnEdtLater().call();
+    }
+
+    latch.await();
+  }
+
+  @Test(timeout = 1000)
+  public void testSlowMailboxDoesNotHoldUpOtherListeners() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch fastCalls = new CountDownLatch(2);
+    List<Integer> slowCalls = Collections.synchronizedList(new ArrayList<>());
+    TestListener slow =
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          slowCalls.add(slowCalls.size());
+        };
+    TestListener fast = fastCalls::countDown;
+    support.registerListener(slow);
+    support.registerListener(fast);
+
+    support.fireToMailboxes().call();
+    support.fireToMailboxes().call();
+    fastCalls.await();
+    release.countDown();
+
+    while (slowCalls.size() < 2) {
+      Thread.yield();
+    }
+    assertEquals(Arrays.asList(0, 1), slowCalls);
+  }
+
+  @Test
+  public void testUnregisteringSkipsQueuedMailboxEvents() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    support.getConfig().setAsyncExecutor(tasks::add);
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+
+    support.fireToMailboxes().call();
+    support.unregisterListener(listener1);
+    for (Runnable task : tasks) {
+      task.run();
+    }
+
+    verify(listener1, never()).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testMailboxRecoversFromRejectedReschedule() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    AtomicInteger executions = new AtomicInteger();
+    support.getConfig()
+        .setAsyncExecutor(
+            task -> {
+              if (executions.incrementAndGet() == 2) {
+                throw new RejectedExecutionException();
+              }
+              tasks.add(task);
+            });
+    support.getConfig().setErrorHandler((listener, method, error) -> {});
+    AtomicInteger calls = new AtomicInteger();
+    support.registerListener(calls::incrementAndGet);
+
+    for (int k = 0; k < 100; k++) {
+      support.fireToMailboxes().call();
+    }
+    tasks.remove(0).run();
+    support.fireToMailboxes().call();
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+
+    assertEquals(101, calls.get());
+  }
+
+  @Test
+  public void testTypedFireCallsEveryListener() throws Exception {
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+
+    support.fire(TestListener::call);
+
+    verify(listener1).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testTypedFirePassesArguments() throws Exception {
+    List<Object> received = new ArrayList<>();
+    support.registerListener(listener1);
+
+    support.fire((listener, argument) -> received.add(argument), "a");
+    support.fireInt((listener, argument) -> received.add(argument), 1);
+    support.fireLong((listener, argument) -> received.add(argument), 2L);
+    support.fireDouble((listener, argument) -> received.add(argument), 3.0);
+
+    assertEquals(Arrays.<Object>asList("a", 1, 2L, 3.0), received);
+  }
+
+  @Test
+  public void testTypedFireOnFilteredView() throws Exception {
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+
+    support.filter(listener -> listener == listener2).fire(TestListener::call);
+
+    verify(listener1, never()).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testFireAsyncCompletesAfterAllListeners() throws Exception {
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+
+    support.fireAsync(TestListener::call).get(1, TimeUnit.SECONDS);
+
+    verify(listener1).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testFireAsyncAggregatesFailures() throws Exception {
+    IllegalStateException exception = new IllegalStateException();
+    doThrow(exception).when(listener1).call();
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+
+    try {
+      support.fireAsync(Runnable::run, TestListener::call).join();
+      fail();
+    } catch (CompletionException e) {
+      ListenerFailureException failure = (ListenerFailureException) e.getCause();
+      assertEquals(Arrays.asList(exception), failure.getFailures());
+    }
+    verify(listener2).call();
+  }
+
+  @Test(timeout = 1000)
+  public void testFireInParallelAsyncCompletesAfterAllListeners() throws Exception {
+    support.getConfig().setParallelThreshold(4);
+    AtomicInteger calls = new AtomicInteger();
+    for (int k = 0; k < 100; k++) {
+      support.registerListener(calls::incrementAndGet);
+    }
+
+    support.fireInParallelAsync(TestListener::call).join();
+
+    assertEquals(100, calls.get());
+  }
+
+  @Test
+  public void testRegisterAllSkipsRegisteredListeners() throws Exception {
+    support.registerListener(listener1);
+    support.registerAll(Arrays.asList(listener1, listener2, listener2));
+
+    support.fire().call();
+
+    assertEquals(2, support.size());
+    verify(listener1).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testUnregisterAllRemovesOnlyGivenListeners() throws Exception {
+    TestListener listener3 = () -> {};
+    support.registerAll(Arrays.asList(listener1, listener2, listener3));
+    support.unregisterAll(Arrays.asList(listener1, listener3));
+
+    support.fire().call();
+
+    assertEquals(1, support.size());
+    verify(listener1, never()).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testReplaceAllSwapsListeners() throws Exception {
+    List<TestListener> listeners = new ArrayList<>();
+    for (int k = 0; k < 100; k++) {
+      listeners.add(() -> {});
+    }
+    support.registerAll(listeners);
+    support.registerListener(listener1);
+
+    support.replaceAll(Arrays.asList(listener2, listeners.get(0)));
+    support.fire().call();
+
+    assertEquals(2, support.size());
+    verify(listener1, never()).call();
+    verify(listener2).call();
+  }
+
+  @Test
+  public void testReplaceAllDuringFireKeepsRetainedListeners() throws Exception {
+    TestListener replacing = () -> support.replaceAll(Arrays.asList(listener1, listener2));
+    support.registerListener(replacing);
+    support.registerListener(listener1);
+
+    support.fire().call();
+
+    verify(listener1).call();
+    verify(listener2, never()).call();
+  }
+
   @Test
   public void testFilterGivesCorrectSize() throws Exception {
     support.registerListener(listener1);
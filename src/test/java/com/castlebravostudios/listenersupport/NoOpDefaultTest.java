@@ -0,0 +1,56 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class NoOpDefaultTest {
+
+  public interface RareEventListener {
+    void onEvent();
+
+    @NoOpDefault
+    default void onRareEvent() {
+      SKIPPED_CALLS.add(this);
+    }
+  }
+
+  private static final List<Object> SKIPPED_CALLS = new ArrayList<>();
+
+  private static final class RareEventCounter implements RareEventListener {
+    private int rareEvents;
+
+    @Override
+    public void onEvent() {}
+
+    @Override
+    public void onRareEvent() {
+      rareEvents++;
+    }
+  }
+
+  @Test
+  public void testOnlyOverridingListenersAreCalled() throws Exception {
+    checkOnlyOverridingListenersAreCalled(ListenerSupport.create(RareEventListener.class));
+  }
+
+  @Test
+  public void testOnlyOverridingWeakListenersAreCalled() throws Exception {
+    checkOnlyOverridingListenersAreCalled(ListenerSupport.createWeak(RareEventListener.class));
+  }
+
+  private void checkOnlyOverridingListenersAreCalled(ListenerSupport<RareEventListener> support) {
+    SKIPPED_CALLS.clear();
+    RareEventListener lambda = () -> {};
+    RareEventCounter counter = new RareEventCounter();
+    support.registerListener(lambda);
+    support.registerListener(counter);
+
+    support.fire().onRareEvent();
+    support.fire().onRareEvent();
+
+    assertEquals(2, counter.rareEvents);
+    assertEquals(0, SKIPPED_CALLS.size());
+  }
+}
@@ -0,0 +1,190 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.swing.SwingUtilities;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OverflowPolicyTest {
+
+  public interface ValueListener {
+    void value(int value);
+  }
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private ListenerSupport<ValueListener> support;
+
+  private ValueListener listener;
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(ValueListener.class);
+    support.getConfig().setAsyncExecutor(tasks::add);
+    support.getConfig().setAsyncQueueCapacity(2);
+    listener = mock(ValueListener.class);
+    support.registerListener(listener);
+  }
+
+  @Test
+  public void testDropNewest() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+    fire(1, 2, 3);
+    runTasks();
+
+    verify(listener).value(1);
+    verify(listener).value(2);
+    verify(listener, never()).value(3);
+    assertEquals(1, support.getConfig().getRejectedEventCount());
+  }
+
+  @Test
+  public void testMailboxEventsCountAgainstCapacity() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+    for (int value = 1; value <= 3; value++) {
+      support.fireToMailboxes().value(value);
+    }
+    runTasks();
+
+    verify(listener).value(1);
+    verify(listener).value(2);
+    verify(listener, never()).value(3);
+    assertEquals(1, support.getConfig().getRejectedEventCount());
+    assertEquals(0, support.getConfig().getPendingEventCount());
+  }
+
+  @Test
+  public void testDropOldest() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+    fire(1, 2, 3);
+    runTasks();
+
+    verify(listener, never()).value(1);
+    verify(listener).value(2);
+    verify(listener).value(3);
+    assertEquals(1, support.getConfig().getRejectedEventCount());
+    assertEquals(0, support.getConfig().getPendingEventCount());
+  }
+
+  @Test
+  public void testCallerRuns() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+    fire(1, 2, 3);
+
+    verify(listener).value(3);
+    verify(listener, never()).value(1);
+    runTasks();
+    verify(listener).value(1);
+    assertEquals(1, support.getConfig().getRejectedEventCount());
+  }
+
+  @Test(timeout = 1000)
+  public void testBlockWaitsForDelivery() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.BLOCK);
+    fire(1, 2);
+    Thread producer = new Thread(() -> fire(3));
+    producer.start();
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+
+    tasks.remove(0).run();
+    producer.join();
+    runTasks();
+
+    verify(listener).value(3);
+    assertEquals(0, support.getConfig().getRejectedEventCount());
+  }
+
+  @Test(timeout = 1000)
+  public void testBlockFromDeliveryThreadRunsOnCaller() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.BLOCK);
+    support.registerListener(
+        value -> {
+          if (value == 1) {
+            fire(10);
+          }
+        });
+    fire(1, 2);
+
+    tasks.remove(0).run();
+
+    verify(listener).value(10);
+    assertEquals(1, support.getConfig().getRejectedEventCount());
+  }
+
+  @Test(timeout = 1000)
+  public void testBlockOnEventDispatchThreadRunsOnCaller() throws Exception {
+    support.getConfig().setOverflowPolicy(OverflowPolicy.BLOCK);
+    support.getConfig().setAsyncQueueCapacity(1);
+    CountDownLatch latch = new CountDownLatch(2);
+    support.registerListener(value -> latch.countDown());
+
+    SwingUtilities.invokeAndWait(
+        () -> {
+          support.fireOnEdtLater().value(1);
+          support.fireOnEdtLater().value(2);
+        });
+
+    latch.await();
+  }
+
+  @Test(timeout = 1000)
+  public void testCallerRunsInParallelUsesConfiguredPool() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    support.getConfig().setParallelPool(pool);
+    support.getConfig().setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+    support.getConfig().setAsyncQueueCapacity(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    List<ForkJoinPool> pools = new ArrayList<>();
+    support.registerListener(
+        value -> {
+          if (value == 1) {
+            started.countDown();
+            awaitUninterruptibly(release);
+          } else {
+            pools.add(ForkJoinTask.getPool());
+          }
+        });
+
+    support.fireInParallel().value(1);
+    started.await();
+    support.fireInParallel().value(2);
+    release.countDown();
+
+    assertEquals(Arrays.asList(pool), pools);
+    pool.shutdown();
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fire(int... values) {
+    for (int value : values) {
+      support.fireOnWtLater().value(value);
+    }
+  }
+
+  private void runTasks() {
+    List<Runnable> queued = new ArrayList<>(tasks);
+    tasks.clear();
+    for (Runnable task : queued) {
+      task.run();
+    }
+  }
+}
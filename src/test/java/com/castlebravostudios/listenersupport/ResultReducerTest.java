@@ -0,0 +1,126 @@
+package com.castlebravostudios.listenersupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultReducerTest {
+
+  public interface VetoListener {
+    boolean vetoes(ConsumableEvent event);
+
+    String describe();
+  }
+
+  private ListenerSupport<VetoListener> support;
+
+  private VetoListener first;
+
+  private VetoListener second;
+
+  @Before
+  public void setUp() {
+    support = ListenerSupport.create(VetoListener.class);
+    first = mock(VetoListener.class);
+    second = mock(VetoListener.class);
+    support.registerListener(first);
+    support.registerListener(second);
+  }
+
+  @Test
+  public void testAnyTrueStopsAtFirstVeto() throws Exception {
+    ConsumableEvent event = new ConsumableEvent();
+    when(first.vetoes(event)).thenReturn(true);
+
+    assertTrue(support.fireReducing(ResultReducer.anyTrue()).vetoes(event));
+    verify(second, never()).vetoes(event);
+  }
+
+  @Test
+  public void testAllTrueVisitsEveryAgreeingListener() throws Exception {
+    ConsumableEvent event = new ConsumableEvent();
+    when(first.vetoes(event)).thenReturn(true);
+    when(second.vetoes(event)).thenReturn(false);
+
+    assertFalse(support.fireReducing(ResultReducer.allTrue()).vetoes(event));
+    verify(second).vetoes(event);
+  }
+
+  @Test
+  public void testConsumedEventStopsPropagation() throws Exception {
+    ConsumableEvent event = new ConsumableEvent();
+    when(first.vetoes(event))
+        .then(
+            invocation -> {
+              event.consume();
+              return false;
+            });
+
+    assertFalse(support.fireReducing(ResultReducer.anyTrue()).vetoes(event));
+    verify(second, never()).vetoes(event);
+  }
+
+  @Test
+  public void testFirstNonNull() throws Exception {
+    when(second.describe()).thenReturn("second");
+
+    assertEquals("second", support.fireReducing(ResultReducer.firstNonNull()).describe());
+  }
+
+  @Test
+  public void testFunctionalReductionCollectsResults() throws Exception {
+    when(first.describe()).thenReturn("first");
+
+    assertEquals(
+        Arrays.asList("first", null),
+        support.fireReducing(VetoListener::describe, ResultReducer.collect()));
+  }
+
+  @Test
+  public void testEmptySupportGivesInitialResult() throws Exception {
+    ListenerSupport<VetoListener> empty = ListenerSupport.create(VetoListener.class);
+
+    assertFalse(empty.fireReducing(ResultReducer.anyTrue()).vetoes(new ConsumableEvent()));
+    assertNull(empty.fireReducing(ResultReducer.firstNonNull()).describe());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullResultForPrimitiveMethodIsRejected() throws Exception {
+    ListenerSupport<VetoListener> empty = ListenerSupport.create(VetoListener.class);
+
+    empty.fireReducing(ResultReducer.firstNonNull()).vetoes(new ConsumableEvent());
+  }
+
+  @Test(timeout = 10000)
+  public void testCustomReducerCanBeCollected() throws Exception {
+    ResultReducer<Boolean, Boolean> reducer =
+        new ResultReducer<Boolean, Boolean>() {
+          @Override
+          public Boolean initial() {
+            return Boolean.FALSE;
+          }
+
+          @Override
+          public Boolean reduce(Boolean accumulated, Boolean result) {
+            return accumulated || result;
+          }
+        };
+    when(first.vetoes(null)).thenReturn(true);
+    assertTrue(support.fireReducing(reducer).vetoes(null));
+    WeakReference<?> collected = new WeakReference<>(reducer);
+    reducer = null;
+
+    while (collected.get() != null) {
+      System.gc();
+    }
+  }
+}
@@ -1,9 +1,58 @@
 package com.castlebravostudios.listenersupport;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
 public class StrongListenerSupportTest extends ListenerSupportTestBase {
 
   @Override
   ListenerSupport<TestListener> getListenerSupport() {
     return ListenerSupport.create(TestListener.class);
   }
+
+  @Test
+  public void testListenerIsOnlyRegisteredOnce() throws Exception {
+    support.registerListener(listener1);
+    support.registerListener(listener1);
+    assertEquals(1, support.size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testIteratorIsUnmodifiable() throws Exception {
+    support.registerListener(listener1);
+    Iterator<TestListener> iterator = support.iterator();
+    iterator.next();
+    iterator.remove();
+  }
+
+  @Test
+  public void testOverriddenInvokeMethodIsCalled() throws Exception {
+    support.registerListener(listener1);
+    RecordingHandler.invoked.clear();
+
+    support.fireWithHandler(RecordingHandler.class).call();
+
+    verify(listener1).call();
+    assertEquals(1, RecordingHandler.invoked.size());
+  }
+
+  public static class RecordingHandler extends DefaultInvocationHandler<TestListener> {
+    static final List<TestListener> invoked = new ArrayList<>();
+
+    public RecordingHandler(Iterable<TestListener> listeners) {
+      super(listeners);
+    }
+
+    @Override
+    protected void invokeMethod(TestListener listener, Method method, Object[] args)
+        throws Throwable {
+      invoked.add(listener);
+      super.invokeMethod(listener, method, args);
+    }
+  }
 }
@@ -1,5 +1,8 @@
 package com.castlebravostudios.listenersupport;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -20,4 +23,26 @@ public class WeakListenerSupportTest extends ListenerSupportTestBase {
       System.gc();
     }
   }
+
+  @Test
+  public void testUnregisterOnlyRemovesGivenListener() throws Exception {
+    support.registerListener(listener1);
+    support.registerListener(listener2);
+    support.registerListener(listener1);
+    support.unregisterListener(listener1);
+
+    assertEquals(1, support.size());
+    assertEquals(listener2, support.iterator().next());
+  }
+
+  @Test
+  public void testReaperDoesNotHoldContextClassLoader() throws Exception {
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("listener-support-reaper")) {
+        assertNull(thread.getContextClassLoader());
+        return;
+      }
+    }
+    fail();
+  }
 }